@@ -0,0 +1,107 @@
+package com.example.library.bench;
+
+import com.example.library.LibraryApplication;
+import com.example.library.service.CirculationStats;
+import com.example.library.service.LibraryService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application without a web server against a private database and seeds it with
+ * set-based SQL, so large catalogs are ready in seconds. The storage backend comes from the
+ * {@code bench.backend} system property: {@code h2-mem} (default), {@code h2-file} or {@code postgres}.
+ */
+final class BenchmarkApp {
+
+    // Matches allocationSize of the Book/Borrower sequence generators
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    static final String BACKEND = System.getProperty("bench.backend", "h2-mem");
+
+    private BenchmarkApp() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, BACKEND, properties);
+    }
+
+    /** Starts against the given backend regardless of {@code bench.backend}, for side-by-side runs. */
+    static ConfigurableApplicationContext startOn(String backend, String... properties) {
+        return start(WebApplicationType.NONE, backend, properties);
+    }
+
+    /** Starts the full web stack on a random port, see {@link #port}. */
+    static ConfigurableApplicationContext startWeb(String... properties) {
+        List<String> props = new ArrayList<>(List.of(properties));
+        props.add("server.port=0");
+        return start(WebApplicationType.SERVLET, BACKEND, props.toArray(String[]::new));
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String backend, String... properties) {
+        List<String> props = new ArrayList<>(storage(backend));
+        props.addAll(List.of(
+                "logging.level.root=WARN",
+                "logging.file.name=target/bench-app.log",
+                "springdoc.api-docs.enabled=false"));
+        props.addAll(List.of(properties));
+        return new SpringApplicationBuilder(LibraryApplication.class)
+                .web(type)
+                // Added to whatever spring.profiles.active a benchmark sets
+                .profiles(backend.equals("h2-mem") ? new String[0] : new String[]{backend})
+                .properties(props.toArray(String[]::new))
+                .run();
+    }
+
+    // A fresh database per trial: a new in-memory H2, a new H2 file under target/, or a new PostgreSQL schema
+    private static List<String> storage(String backend) {
+        String id = UUID.randomUUID().toString().replace("-", "");
+        return switch (backend) {
+            case "h2-mem" -> List.of("spring.datasource.url=jdbc:h2:mem:bench-" + id + ";DB_CLOSE_DELAY=-1");
+            case "h2-file" -> List.of("library.h2.path=target/bench-db/" + id + "/library");
+            case "postgres" -> List.of(
+                    "spring.datasource.hikari.schema=bench_" + id,
+                    "spring.flyway.schemas=bench_" + id,
+                    "spring.flyway.default-schema=bench_" + id);
+            default -> throw new IllegalArgumentException("Unknown bench.backend: " + backend);
+        };
+    }
+
+    /**
+     * Inserts {@code copies} books spread over {@code copies / copiesPerTitle} titles, plus {@code borrowers}
+     * borrowers. Ids are assigned explicitly and the sequences moved past them, then the in-memory
+     * indexes and circulation counters are rebuilt from the seeded rows.
+     */
+    static void seed(ConfigurableApplicationContext context, int copies, int copiesPerTitle, int borrowers) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        int titles = Math.max(1, copies / copiesPerTitle);
+        // Row generator yielding x = 1..n
+        String range = context.getEnvironment().matchesProfiles("postgres")
+                ? "generate_series(1, ?) as r(x)"
+                : "system_range(1, ?)";
+
+        jdbc.update("insert into title (isbn, title, author) " +
+                "select 'isbn-' || x, 'Title ' || x, 'Author ' || mod(x, 997) from " + range, titles);
+        jdbc.update("insert into book (id, isbn, current_borrower_id, version) " +
+                "select x, 'isbn-' || (1 + mod(x, ?)), null, 0 from " + range, titles, copies);
+        jdbc.update("insert into borrower (id, name, email) " +
+                "select x, 'Borrower ' || x, 'borrower' || x || '@bench.test' from " + range, borrowers);
+        // The pooled optimizer hands out (value - allocationSize, value], so leave a full block of headroom
+        jdbc.execute("alter sequence book_seq restart with " + (copies + ID_ALLOCATION_SIZE + 1));
+        jdbc.execute("alter sequence borrower_seq restart with " + (borrowers + ID_ALLOCATION_SIZE + 1));
+
+        LibraryService libraryService = context.getBean(LibraryService.class);
+        libraryService.seedAvailabilityIndex();
+        libraryService.seedSearchIndex();
+        context.getBean(CirculationStats.class).reconcile();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.library.bench;
+
+import com.example.library.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One borrow plus one return per operation. Each thread cycles through its own slice of copies,
+ * so the uncontended path is measured as threads are added; {@code contended} makes all threads
+ * fight over the same few copies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BorrowBenchmark {
+
+    static final int COPIES = 10_000;
+    static final int BORROWERS = 100;
+    static final int CONTENDED_COPIES = 4;
+
+    ConfigurableApplicationContext context;
+    LibraryService libraryService;
+    final AtomicInteger threadSlots = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("logging.level.com.example.library=OFF");
+        BenchmarkApp.seed(context, COPIES, 10, BORROWERS);
+        libraryService = context.getBean(LibraryService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Slot {
+        long borrowerId;
+        long firstCopy;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(BorrowBenchmark benchmark) {
+            int slot = benchmark.threadSlots.getAndIncrement();
+            borrowerId = 1 + (slot % BORROWERS);
+            firstCopy = 1 + (long) slot * 256 % COPIES;
+        }
+
+        long nextCopy() {
+            cursor = (cursor + 1) % 256;
+            return firstCopy + cursor;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void borrowReturn_1thread(Slot slot) {
+        cycle(slot);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void borrowReturn_4threads(Slot slot) {
+        cycle(slot);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void borrowReturn_16threads(Slot slot) {
+        cycle(slot);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean contended_16threads(Slot slot) {
+        long bookId = 1 + (slot.nextCopy() % CONTENDED_COPIES);
+        if (!libraryService.borrowBook(slot.borrowerId, bookId).isOk()) {
+            return false;
+        }
+        libraryService.returnBook(bookId);
+        return true;
+    }
+
+    private void cycle(Slot slot) {
+        long bookId = slot.nextCopy();
+        libraryService.borrowBook(slot.borrowerId, bookId);
+        libraryService.returnBook(bookId);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.library.bench;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP load test for POST /borrow (each followed by a return) at rising client concurrency.
+ * Run once per mode and compare the reports:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbench.main=com.example.library.bench.BorrowLoadTest -Djmh.args=platform
+ * mvn -Pbenchmark,java21 test-compile exec:exec -Dbench.main=com.example.library.bench.BorrowLoadTest -Djmh.args=virtual
+ * </pre>
+ * "Max concurrency" is the highest level that completed with no errors and p99 under the SLO.
+ * Admission control is off unless a second argument {@code admission} is given
+ * ({@code -Djmh.args="platform admission"}); requests it sheds with 429/503 are counted apart from errors.
+ */
+public final class BorrowLoadTest {
+
+    private static final int[] CONCURRENCY = {50, 200, 500, 1000, 2000};
+    private static final int REQUESTS_PER_LEVEL = 5_000;
+    private static final int BORROWERS = 100;
+    private static final long P99_SLO_MILLIS = 500;
+
+    private BorrowLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean virtual = args.length > 0 && args[0].equals("virtual");
+        boolean admission = args.length > 1 && args[1].equals("admission");
+        if (virtual && Runtime.version().feature() < 21) {
+            System.err.println("Virtual threads need Java 21+: rebuild with -Pjava21 and run on a 21 JDK.");
+            System.exit(2);
+        }
+
+        int copies = Arrays.stream(CONCURRENCY).max().orElseThrow();
+        ConfigurableApplicationContext context = BenchmarkApp.startWeb(
+                "logging.level.com.example.library=WARN",
+                // Up to CONCURRENCY / BORROWERS copies per borrower are out at once
+                "library.loans.max-per-borrower=0",
+                "spring.profiles.active=" + (virtual ? "virtual-threads" : "default"),
+                // Every request comes from one client, so only the concurrency limits apply
+                admission ? "library.admission.client.rate=0" : "library.admission.enabled=false");
+        try {
+            BenchmarkApp.seed(context, copies, 1, BORROWERS);
+            String base = "http://localhost:" + BenchmarkApp.port(context) + "/api/library";
+            ExecutorService clientThreads = Executors.newCachedThreadPool();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientThreads)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            System.out.printf("%n[load] mode=%s, admission %s, %d borrow requests per level%n",
+                    virtual ? "virtual" : "platform", admission ? "on" : "off", REQUESTS_PER_LEVEL);
+            System.out.printf("[load] %11s %10s %10s %10s %8s %8s%n", "concurrency", "req/s", "p50 ms", "p99 ms", "errors",
+                    "shed");
+            int maxHealthy = 0;
+            for (int level : CONCURRENCY) {
+                Result result = run(client, base, level);
+                System.out.printf("[load] %11d %10.0f %10.1f %10.1f %8d %8d%n",
+                        level, result.throughput(), result.p50Millis(), result.p99Millis(), result.errors(), result.shed());
+                if (result.errors() == 0 && result.p99Millis() <= P99_SLO_MILLIS) {
+                    maxHealthy = level;
+                }
+            }
+            System.out.printf("[load] max concurrency within p99 %d ms and no errors: %d%n", P99_SLO_MILLIS, maxHealthy);
+            clientThreads.shutdownNow();
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result run(HttpClient client, String base, int concurrency) throws InterruptedException {
+        // Each in-flight slot owns one copy, so requests measure the server, not lending conflicts.
+        // The semaphore guarantees a free slot is queued whenever a permit is held.
+        Semaphore permits = new Semaphore(concurrency);
+        Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+        for (int slot = 0; slot < concurrency; slot++) {
+            freeSlots.add(slot);
+        }
+        long[] latencies = new long[REQUESTS_PER_LEVEL];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(REQUESTS_PER_LEVEL);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS_PER_LEVEL; i++) {
+            permits.acquire();
+            int slot = freeSlots.poll();
+            int request = i;
+            long bookId = slot + 1;
+            long borrowerId = 1 + (slot % BORROWERS);
+            long sent = System.nanoTime();
+            client.sendAsync(post(base + "/borrow?borrowerId=" + borrowerId + "&bookId=" + bookId),
+                            HttpResponse.BodyHandlers.discarding())
+                    .thenCompose(borrowed -> {
+                        latencies[request] = System.nanoTime() - sent;
+                        if (borrowed.statusCode() == 429 || borrowed.statusCode() == 503) {
+                            shed.incrementAndGet();
+                        } else if (borrowed.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        return client.sendAsync(post(base + "/return/" + bookId), HttpResponse.BodyHandlers.discarding());
+                    })
+                    .whenComplete((returned, failure) -> {
+                        if (failure != null) {
+                            errors.incrementAndGet();
+                        }
+                        freeSlots.add(slot);
+                        permits.release();
+                        done.countDown();
+                    });
+        }
+        done.await(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(REQUESTS_PER_LEVEL * 1e9 / elapsed,
+                latencies[latencies.length / 2] / 1e6,
+                latencies[(int) (latencies.length * 0.99)] / 1e6,
+                errors.get(),
+                shed.get());
+    }
+
+    private static HttpRequest post(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private record Result(double throughput, double p50Millis, double p99Millis, int errors, int shed) {
+    }
+}
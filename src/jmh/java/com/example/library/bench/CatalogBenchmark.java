@@ -0,0 +1,57 @@
+package com.example.library.bench;
+
+import com.example.library.dto.BookPage;
+import com.example.library.model.Book;
+import com.example.library.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-catalog reads at increasing sizes: the unbounded {@code getAllBooks} list,
+ * the NDJSON stream's row source, and a single keyset page for reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CatalogBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("logging.level.com.example.library=WARN");
+        BenchmarkApp.seed(context, rows, 10, 100);
+        libraryService = context.getBean(LibraryService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Book> getAllBooks() {
+        return libraryService.getAllBooks();
+    }
+
+    @Benchmark
+    public long streamAllBooks(Blackhole blackhole) {
+        return libraryService.streamAllBooks(blackhole::consume);
+    }
+
+    @Benchmark
+    public BookPage firstPage() {
+        return libraryService.getBooksPage(null, LibraryService.DEFAULT_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.library.bench;
+
+import com.example.library.controller.LibraryController;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowerRepository;
+import com.example.library.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /borrow for a copy that is already lent, called on the controller bean:
+ * <ul>
+ *   <li>{@code outcome} - the current path: the service returns a failed Outcome and the controller
+ *   answers with a preallocated 409</li>
+ *   <li>{@code exception} - the previous path, rebuilt from the same queries: the service throws an
+ *   IllegalStateException, logs it at ERROR and rethrows (rolling the transaction back), and the
+ *   controller catches it to build the 409</li>
+ * </ul>
+ * Both run the same three queries (borrower lock, conditional UPDATE, lent check).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConflictPathBenchmark {
+
+    private static final Logger legacyLog = LoggerFactory.getLogger(LibraryService.class);
+
+    private static final long BORROWER = 1;
+    private static final long LENT_COPY = 1;
+
+    private ConfigurableApplicationContext context;
+    private LibraryController controller;
+    private BookRepository bookRepository;
+    private BorrowerRepository borrowerRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        BenchmarkApp.seed(context, 1_000, 10, 10);
+        controller = context.getBean(LibraryController.class);
+        bookRepository = context.getBean(BookRepository.class);
+        borrowerRepository = context.getBean(BorrowerRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        context.getBean(LibraryService.class).borrowBook(BORROWER + 1, LENT_COPY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> outcome() {
+        return controller.borrowBook(BORROWER, LENT_COPY);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> exception() {
+        try {
+            legacyBorrow(BORROWER, LENT_COPY);
+            return ResponseEntity.ok("Book borrowed successfully.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ResponseEntity<?> outcome_4threads() {
+        return outcome();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ResponseEntity<?> exception_4threads() {
+        return exception();
+    }
+
+    private void legacyBorrow(long borrowerId, long bookId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                borrowerRepository.lockById(borrowerId).orElseThrow(() -> new IllegalArgumentException("Borrower not found"));
+                if (bookRepository.claimCopy(bookId, borrowerId, 10) == 1) {
+                    return;
+                }
+                if (bookRepository.existsByIdAndCurrentBorrowerIdIsNotNull(bookId)) {
+                    throw new IllegalStateException("Book is already borrowed.");
+                }
+                throw new IllegalArgumentException("Book not found");
+            } catch (Exception ex) {
+                legacyLog.error("Exception: Borrow transaction failed for Book {}. Error: {}", bookId, ex.getMessage());
+                throw ex;
+            }
+        });
+    }
+}
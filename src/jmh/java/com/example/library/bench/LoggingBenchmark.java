@@ -0,0 +1,134 @@
+package com.example.library.bench;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.example.library.logging.LogMarkers;
+import com.example.library.logging.SamplingTurboFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost of one borrow request (its request and response INFO lines around some simulated
+ * request work), measured on the calling thread. Subtract the {@code off} score to get the overhead:
+ * <ul>
+ *   <li>{@code off} - no appenders, the request work alone</li>
+ *   <li>{@code sync} - the previous setup: pattern layout, blocking file appender, flush per event</li>
+ *   <li>{@code async} - logback-spring.xml: ECS JSON, buffered file appender behind an AsyncAppender</li>
+ *   <li>{@code async-sampled} - as {@code async}, keeping one in 100 borrow lines</li>
+ * </ul>
+ * Each trial gets its own logger context writing to a temporary file, so the application is not booted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final long REQUEST_WORK = 10_000;
+
+    @Param({"off", "sync", "async", "async-sampled"})
+    public String mode;
+
+    private LoggerContext context;
+    private Logger log;
+    private Path logFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("logging-bench", ".log");
+        context = new LoggerContext();
+        context.putObject(Environment.class.getName(), new StandardEnvironment());
+
+        if (mode.equals("off")) {
+            log = context.getLogger("com.example.library.service.LibraryService");
+            log.setLevel(ch.qos.logback.classic.Level.OFF);
+            return;
+        }
+
+        boolean async = !mode.equals("sync");
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setEncoder(async ? jsonEncoder() : patternEncoder());
+        file.setImmediateFlush(!async);
+        file.start();
+
+        Appender<ILoggingEvent> root = file;
+        if (async) {
+            AsyncAppender queue = new AsyncAppender();
+            queue.setContext(context);
+            queue.setQueueSize(8192);
+            queue.addAppender(file);
+            queue.start();
+            root = queue;
+        }
+        if (mode.equals("async-sampled")) {
+            SamplingTurboFilter sampling = new SamplingTurboFilter();
+            sampling.setContext(context);
+            sampling.setRates("borrow=100");
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(root);
+        log = context.getLogger("com.example.library.service.LibraryService");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void borrowRequest() {
+        logBorrow();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void borrowRequestContended() {
+        logBorrow();
+    }
+
+    private void logBorrow() {
+        long bookId = ThreadLocalRandom.current().nextLong(1, 100_000);
+        log.info(LogMarkers.BORROW, "Request: Borrower {} borrowing Book {}", 42L, bookId);
+        // Stand-in for the claim query, so the async worker is not saturated by back-to-back events
+        Blackhole.consumeCPU(REQUEST_WORK);
+        log.info(LogMarkers.BORROW, "Response: Successfully borrowed Book {}", bookId);
+    }
+
+    private Encoder<ILoggingEvent> patternEncoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss} %-5level %logger{36} - %msg%n");
+        encoder.start();
+        return encoder;
+    }
+
+    private Encoder<ILoggingEvent> jsonEncoder() {
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat("ecs");
+        encoder.start();
+        return encoder;
+    }
+}
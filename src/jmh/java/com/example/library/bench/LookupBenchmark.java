@@ -0,0 +1,60 @@
+package com.example.library.bench;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.dto.BookView;
+import com.example.library.service.LibraryService;
+import com.example.library.service.Outcome;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getBook through the read-through cache versus a forced database lookup (entry evicted first).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+    private static final int HOT_BOOKS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private Cache books;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        BenchmarkApp.seed(context, 100_000, 10, 100);
+        libraryService = context.getBean(LibraryService.class);
+        books = context.getBean(CacheManager.class).getCache(CacheConfig.BOOKS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Outcome<BookView> cached() {
+        return libraryService.getBook(hotBookId());
+    }
+
+    @Benchmark
+    public Outcome<BookView> database() {
+        long id = hotBookId();
+        books.evict(id);
+        return libraryService.getBook(id);
+    }
+
+    private static long hotBookId() {
+        return 1 + ThreadLocalRandom.current().nextInt(HOT_BOOKS);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.library.bench;
+
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import com.example.library.service.LibraryService;
+import com.example.library.service.Outcome;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * registerBook for a new ISBN (inserts a Title and a copy) versus an existing one
+ * (metadata check plus a copy), and registerBorrower with a fresh email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        BenchmarkApp.seed(context, 10_000, 10, 1_000);
+        libraryService = context.getBean(LibraryService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Outcome<Book> registerBook_newIsbn() {
+        long n = sequence.incrementAndGet();
+        return libraryService.registerBook(book("new-" + n, "New Title " + n, "Author"));
+    }
+
+    @Benchmark
+    public Outcome<Book> registerBook_existingIsbn() {
+        return libraryService.registerBook(book("isbn-42", "Title 42", "Author 42"));
+    }
+
+    @Benchmark
+    public Outcome<Borrower> registerBorrower() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Bench");
+        borrower.setEmail("bench" + sequence.incrementAndGet() + "@bench.test");
+        return libraryService.registerBorrower(borrower);
+    }
+
+    private static Book book(String isbn, String title, String author) {
+        Book book = new Book();
+        book.setTitle(new Title(isbn, title, author));
+        return book;
+    }
+}
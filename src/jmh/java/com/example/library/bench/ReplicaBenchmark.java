@@ -0,0 +1,108 @@
+package com.example.library.bench;
+
+import com.example.library.dto.BookPage;
+import com.example.library.dto.BookView;
+import com.example.library.replica.ReplicaRoutingDataSource;
+import com.example.library.service.LibraryService;
+import com.example.library.service.Outcome;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read throughput on 16 threads as read replicas are added. The primary and every replica are H2
+ * files in this JVM, filled with a copy of the seeded catalog; {@code replicas=0} is the single
+ * datasource without routing. Each thread is its own client that never writes, so every labelled
+ * read may go to a replica. On one machine the replicas share its cores, so this shows the routing
+ * overhead and the relief from spreading reads over several database engines, not remote capacity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(16)
+@Fork(1)
+public class ReplicaBenchmark {
+
+    static final int COPIES = 100_000;
+    static final int BORROWERS = 1_000;
+
+    @Param({"0", "1", "2", "4"})
+    public int replicas;
+
+    ConfigurableApplicationContext context;
+    LibraryService libraryService;
+    final AtomicInteger clients = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path directory = Path.of("target/bench-replicas", UUID.randomUUID().toString().replace("-", ""));
+        List<String> urls = new ArrayList<>();
+        for (int i = 1; i <= replicas; i++) {
+            urls.add("jdbc:h2:file:./" + directory.resolve("replica-" + i) + ";DB_CLOSE_ON_EXIT=FALSE");
+        }
+        context = urls.isEmpty()
+                ? BenchmarkApp.startOn("h2-file", "logging.level.com.example.library=OFF")
+                : BenchmarkApp.startOn("h2-file", "logging.level.com.example.library=OFF",
+                        "library.datasource.replicas.urls=" + String.join(",", urls));
+        BenchmarkApp.seed(context, COPIES, 10, BORROWERS);
+        libraryService = context.getBean(LibraryService.class);
+
+        // A tenth of the copies on loan, so every borrower has something to list
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("update book set current_borrower_id = 1 + mod(id, ?) where id <= ?", BORROWERS, COPIES / 10);
+        if (!urls.isEmpty()) {
+            String script = directory.resolve("primary.sql").toString();
+            jdbc.execute("script to '" + script + "'");
+            for (String url : urls) {
+                try (Connection replica = DriverManager.getConnection(url, "sa", "");
+                     Statement statement = replica.createStatement()) {
+                    statement.execute("drop all objects");
+                    statement.execute("runscript from '" + script + "'");
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        ReplicaRoutingDataSource.ClientScope scope;
+
+        @Setup(Level.Trial)
+        public void bind(ReplicaBenchmark benchmark) {
+            scope = ReplicaRoutingDataSource.bindClient("reader-" + benchmark.clients.incrementAndGet());
+        }
+
+        @TearDown(Level.Trial)
+        public void unbind() {
+            scope.close();
+        }
+    }
+
+    @Benchmark
+    public BookPage booksPage(Client client) {
+        return libraryService.getBooksPage(null, LibraryService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Outcome<List<BookView>> borrowedBooks(Client client) {
+        return libraryService.getBorrowedBooks(1L + ThreadLocalRandom.current().nextInt(BORROWERS));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.library.bench;
+
+import com.example.library.dto.SearchPage;
+import com.example.library.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of a title/author search: the in-memory index behind GET /books/search versus the
+ * SQL a client would otherwise need, a {@code LIKE '%term%'} per term over title and author.
+ * The catalog holds one copy per title, so {@code rows} is also the number of titles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    // A selective title term, and a broad author prefix matching about 1% of the catalog
+    @Param({"title 4242", "author 99"})
+    public String query;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private JdbcTemplate jdbc;
+    private String likeSql;
+    private Object[] likeArgs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        BenchmarkApp.seed(context, rows, 1, 10);
+        libraryService = context.getBean(LibraryService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        for (String term : query.toLowerCase(Locale.ROOT).split(" ")) {
+            conditions.add("(lower(title) like ? or lower(author) like ?)");
+            args.add("%" + term + "%");
+            args.add("%" + term + "%");
+        }
+        likeSql = "select isbn, title, author from title where " + String.join(" and ", conditions)
+                + " order by title limit " + PAGE_SIZE;
+        likeArgs = args.toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SearchPage index() {
+        return libraryService.searchBooks(query, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> sqlLike() {
+        return jdbc.queryForList(likeSql, likeArgs);
+    }
+}
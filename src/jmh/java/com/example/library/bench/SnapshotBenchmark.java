@@ -0,0 +1,115 @@
+package com.example.library.bench;
+
+import com.example.library.dto.BatchResult;
+import com.example.library.dto.SnapshotResult;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import com.example.library.service.BulkImportService;
+import com.example.library.service.CatalogSnapshotService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Catalog backup and restore at 1M copies (100k titles, 100k borrowers), one shot per iteration:
+ * <ul>
+ *   <li>{@code exportSnapshot} / {@code importSnapshot} - the binary snapshot written through a file
+ *   channel and loaded back from a memory-mapped file with JDBC batches</li>
+ *   <li>{@code bulkImport} - the previous fastest way to seed an environment: the same rows through
+ *   {@code BulkImportService} (per-row validation, Hibernate batching)</li>
+ * </ul>
+ * Loads start from an empty catalog; the wipe before each one is not measured. The snapshot size is
+ * printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private static final String SNAPSHOT = "bench-catalog";
+
+    @Param("1000000")
+    public int copies;
+
+    private ConfigurableApplicationContext context;
+    private CatalogSnapshotService snapshotService;
+    private BulkImportService bulkImportService;
+    private JdbcTemplate jdbc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("logging.level.com.example.library=WARN",
+                "library.snapshot.dir=target/bench-snapshots");
+        BenchmarkApp.seed(context, copies, 10, copies / 10);
+        snapshotService = context.getBean(CatalogSnapshotService.class);
+        bulkImportService = context.getBean(BulkImportService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        SnapshotResult snapshot = snapshotService.export(SNAPSHOT);
+        System.out.printf("%n[snapshot] %d titles, %d borrowers, %d copies in %d bytes%n",
+                snapshot.titles(), snapshot.borrowers(), snapshot.books(), snapshot.bytes());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Loads start from an empty catalog
+    @Setup(Level.Iteration)
+    public void wipe(BenchmarkParams params) {
+        if (!params.getBenchmark().endsWith("exportSnapshot")) {
+            jdbc.update("delete from book");
+            jdbc.update("delete from borrower");
+            jdbc.update("delete from title");
+        }
+    }
+
+    // The bulk import assigns new ids, so put the seeded catalog back for the benchmarks that follow
+    @TearDown(Level.Iteration)
+    public void restore(BenchmarkParams params) {
+        if (params.getBenchmark().endsWith("bulkImport")) {
+            jdbc.update("delete from book");
+            jdbc.update("delete from borrower");
+            jdbc.update("delete from title");
+            snapshotService.importSnapshot(SNAPSHOT);
+        }
+    }
+
+    @Benchmark
+    public SnapshotResult exportSnapshot() {
+        return snapshotService.export("bench-export");
+    }
+
+    @Benchmark
+    public SnapshotResult importSnapshot() {
+        return snapshotService.importSnapshot(SNAPSHOT);
+    }
+
+    @Benchmark
+    public BatchResult[] bulkImport() {
+        int titles = copies / 10;
+        Iterator<Borrower> borrowers = LongStream.rangeClosed(1, titles).mapToObj(x -> {
+            Borrower borrower = new Borrower();
+            borrower.setName("Borrower " + x);
+            borrower.setEmail("borrower" + x + "@bench.test");
+            return borrower;
+        }).iterator();
+        Iterator<Book> books = LongStream.rangeClosed(1, copies).mapToObj(x -> {
+            long n = 1 + x % titles;
+            Book book = new Book();
+            book.setTitle(new Title("isbn-" + n, "Title " + n, "Author " + n % 997));
+            return book;
+        }).iterator();
+        return new BatchResult[]{bulkImportService.importBorrowers(borrowers), bulkImportService.importBooks(books)};
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.library.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time from launching the JVM to the first successful GET /api/library/books, for the packaged
+ * application started plainly and in fast-startup mode (AOT, CDS archive, lazy beans, no schema
+ * generation). Needs the artifacts of a fast-startup build:
+ * <pre>
+ * mvn -Pfast-startup package -DskipTests
+ * mvn -Pbenchmark test-compile exec:exec -Dbench.main=com.example.library.bench.StartupBenchmark -Djmh.args=5
+ * </pre>
+ * The argument is the number of launches per mode (default 5).
+ */
+public final class StartupBenchmark {
+
+    private static final Path APP_DIR = Path.of("target", "app");
+    private static final String JAR = "library-0.0.1-SNAPSHOT.jar";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        if (!Files.exists(APP_DIR.resolve("application.jsa"))) {
+            System.err.println("No CDS archive in " + APP_DIR + ": run mvn -Pfast-startup package first.");
+            System.exit(2);
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        System.out.printf("%n[startup] time to first GET /books, %d launches per mode%n", runs);
+        System.out.printf("[startup] %-13s %10s %10s %10s%n", "mode", "min ms", "median ms", "max ms");
+        report("plain", runs, client, List.of("-jar", "../" + JAR));
+        report("fast-startup", runs, client, List.of(
+                "-XX:SharedArchiveFile=application.jsa",
+                "-Dspring.aot.enabled=true",
+                "-Dspring.profiles.active=fast-startup",
+                "-jar", JAR));
+    }
+
+    private static void report(String mode, int runs, HttpClient client, List<String> jvmArgs) throws Exception {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = launch(mode, client, jvmArgs);
+        }
+        Arrays.sort(millis);
+        System.out.printf("[startup] %-13s %10d %10d %10d%n", mode, millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    private static long launch(String mode, HttpClient client, List<String> jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Dserver.port=" + port);
+        command.add("-Dlogging.file.name=startup-" + mode + ".log");
+        command.addAll(jvmArgs);
+        HttpRequest books = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/library/books"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        Process app = new ProcessBuilder(command)
+                .directory(APP_DIR.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File(APP_DIR.toFile(), "startup-" + mode + ".out")))
+                .start();
+        try {
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!app.isAlive()) {
+                    throw new IllegalStateException(mode + " exited with " + app.exitValue() + ", see " + APP_DIR);
+                }
+                try {
+                    if (client.send(books, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (IOException notListeningYet) {
+                    // keep polling
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException(mode + " did not serve /books within " + STARTUP_TIMEOUT);
+        } finally {
+            app.destroy();
+            app.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
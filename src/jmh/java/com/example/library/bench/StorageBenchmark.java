@@ -0,0 +1,60 @@
+package com.example.library.bench;
+
+import com.example.library.model.Borrower;
+import com.example.library.service.LibraryService;
+import com.example.library.service.Outcome;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The same write paths on each storage backend: a borrow plus a return (two commits) and a
+ * borrower registration (one insert). PostgreSQL needs a server and the postgres Maven profile,
+ * so it is opt-in: {@code -p backend=h2-mem,h2-file,postgres}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int COPIES = 10_000;
+
+    @Param({"h2-mem", "h2-file"})
+    public String backend;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.startOn(backend, "logging.level.com.example.library=OFF");
+        BenchmarkApp.seed(context, COPIES, 10, 100);
+        libraryService = context.getBean(LibraryService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Outcome<Void> borrowAndReturn() {
+        long bookId = 1 + sequence.incrementAndGet() % COPIES;
+        libraryService.borrowBook(1L, bookId);
+        return libraryService.returnBook(bookId);
+    }
+
+    @Benchmark
+    public Outcome<Borrower> registerBorrower() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Bench");
+        borrower.setEmail("storage" + sequence.incrementAndGet() + "@bench.test");
+        return libraryService.registerBorrower(borrower);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.library.bench;
+
+import com.example.library.dto.BookPage;
+import com.example.library.model.Book;
+import com.example.library.service.LibraryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One catalog page (GET /books, 100 rows) read and serialized, as the controller would:
+ * <ul>
+ *   <li>{@code entityJson} - the previous path: Book entities with their Titles hydrated into the
+ *   persistence context, written as JSON</li>
+ *   <li>{@code viewJson} / {@code viewCbor} - the current path: BookView rows from a constructor
+ *   expression, written as JSON or as CBOR ({@code Accept: application/cbor})</li>
+ * </ul>
+ * Response sizes are printed at setup; run with {@code -prof gc} for allocation per request
+ * ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApp.start("logging.level.com.example.library=WARN");
+        BenchmarkApp.seed(context, 10_000, 10, 100);
+        libraryService = context.getBean(LibraryService.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        json = context.getBean(ObjectMapper.class);
+        cbor = context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+
+        System.out.printf("%n[wire] bytes per page: entity JSON %d, view JSON %d, view CBOR %d%n",
+                entityJson().length, viewJson().length, viewCbor().length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] entityJson() throws Exception {
+        List<Book> books = readOnly.execute(status -> entityManager
+                .createQuery("select b from Book b join fetch b.title where b.id > 0 order by b.id", Book.class)
+                .setMaxResults(LibraryService.DEFAULT_PAGE_SIZE)
+                .getResultList());
+        return json.writeValueAsBytes(new EntityPage(books, null));
+    }
+
+    @Benchmark
+    public byte[] viewJson() throws Exception {
+        return json.writeValueAsBytes(page());
+    }
+
+    @Benchmark
+    public byte[] viewCbor() throws Exception {
+        return cbor.writeValueAsBytes(page());
+    }
+
+    private BookPage page() {
+        return libraryService.getBooksPage(null, LibraryService.DEFAULT_PAGE_SIZE);
+    }
+
+    // The response shape before BookPage carried views
+    private record EntityPage(List<Book> items, String nextCursor) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.library.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for one endpoint that follows observed latency (AIMD). While the limit is
+ * saturated, each request finishing within the target latency adds {@code 1 / limit}, so the limit
+ * grows by about one per window of requests; a request over the target multiplies it by
+ * {@code backoff}, at most once per window: the requests already in flight when it shrank ran under
+ * the old limit, so their latencies are not held against the new one. Requests over the limit wait
+ * in a short bounded queue and are shed when it is full or their wait runs out, instead of piling up
+ * on Tomcat threads and JDBC connections.
+ */
+public class AdaptiveLimiter {
+
+    public enum Result { ADMITTED, QUEUE_FULL, TIMED_OUT }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoff;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    // Completions still due from requests admitted before the last decrease
+    private int draining;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis, double backoff,
+                           int maxQueue, long maxWaitMillis) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.backoff = backoff;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /** Admits the caller now, after a bounded wait, or not at all. Every admission must be {@link #release}d. */
+    public Result acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return Result.ADMITTED;
+            }
+            if (queued >= maxQueue) {
+                return Result.QUEUE_FULL;
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return Result.TIMED_OUT;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return Result.ADMITTED;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Ends an admitted request and adapts the limit to how long it took. */
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+            if (draining > 0) {
+                draining--;
+            } else if (latencyNanos > targetLatencyNanos) {
+                limit = Math.max(minLimit, limit * backoff);
+                draining = inFlight;
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            // A grown limit may admit several waiters
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
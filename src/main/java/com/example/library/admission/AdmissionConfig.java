@@ -0,0 +1,56 @@
+package com.example.library.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.Map;
+
+/** Wires {@link AdmissionFilter} from the {@code library.admission.*} settings. */
+@Configuration
+@ConditionalOnProperty(name = "library.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(
+            Environment env, MeterRegistry registry,
+            @Value("${library.admission.client.rate:0}") double clientRate,
+            @Value("${library.admission.client.burst:1}") int clientBurst,
+            @Value("${library.admission.client.max-clients:100000}") int maxClients,
+            @Value("${library.admission.client.header:X-Client-Id}") String clientHeader,
+            @Value("${library.admission.client.trusted-proxies:}") List<String> trustedProxies,
+            @Value("${library.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        Map<String, AdaptiveLimiter> limiters = Map.of(
+                AdmissionFilter.BORROW, limiter(env, AdmissionFilter.BORROW),
+                AdmissionFilter.BORROW_BATCH, limiter(env, AdmissionFilter.BORROW_BATCH),
+                AdmissionFilter.REGISTRATION, limiter(env, AdmissionFilter.REGISTRATION));
+        AdmissionFilter filter = new AdmissionFilter(limiters, new ClientRateLimiter(clientRate, clientBurst, maxClients),
+                new ClientIdentity(clientHeader, trustedProxies), retryAfterSeconds, registry);
+
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(filter);
+        // Shed before anything else spends work on the request
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    // library.admission.<endpoint>.* with shared defaults from library.admission.*
+    private static AdaptiveLimiter limiter(Environment env, String endpoint) {
+        String prefix = "library.admission." + endpoint + ".";
+        return new AdaptiveLimiter(
+                env.getProperty(prefix + "initial-limit", Integer.class, 20),
+                env.getProperty(prefix + "min-limit", Integer.class, 2),
+                env.getProperty(prefix + "max-limit", Integer.class, 200),
+                env.getProperty(prefix + "target-latency-ms", Long.class,
+                        env.getProperty("library.admission.target-latency-ms", Long.class, 250L)),
+                env.getProperty("library.admission.backoff", Double.class, 0.9),
+                env.getProperty(prefix + "queue-size", Integer.class, 50),
+                env.getProperty(prefix + "max-wait-ms", Long.class,
+                        env.getProperty("library.admission.max-wait-ms", Long.class, 100L)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.library.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the borrow and registration endpoints. A request is first charged
+ * to its client's token bucket (429 when empty), then has to fit under its endpoint's adaptive
+ * concurrency limit (503 when the queue is full or the wait runs out). Both rejections carry
+ * {@code Retry-After} and are written here, before a Tomcat thread reaches the controller or a
+ * JDBC connection is taken.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    static final String BORROW = "borrow";
+    // A batch holds its connection for a whole stack of copies, so it must not use up the single borrows' limit
+    static final String BORROW_BATCH = "borrow-batch";
+    static final String REGISTRATION = "registration";
+
+    private static final byte[] RATE_LIMITED = "Too many requests from this client.".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OVERLOADED = "Server busy, please retry.".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<String, AdaptiveLimiter> limiters;
+    private final ClientRateLimiter rateLimiter;
+    private final ClientIdentity clients;
+    private final String overloadRetryAfter;
+    private final Map<String, Counter> shed = new HashMap<>();
+
+    public AdmissionFilter(Map<String, AdaptiveLimiter> limiters, ClientRateLimiter rateLimiter, ClientIdentity clients,
+                           long overloadRetryAfterSeconds, MeterRegistry registry) {
+        this.limiters = limiters;
+        this.rateLimiter = rateLimiter;
+        this.clients = clients;
+        this.overloadRetryAfter = Long.toString(overloadRetryAfterSeconds);
+
+        limiters.forEach((endpoint, limiter) -> {
+            Gauge.builder("library.admission.limit", limiter, AdaptiveLimiter::limit)
+                    .description("Current adaptive concurrency limit").tag("endpoint", endpoint).register(registry);
+            Gauge.builder("library.admission.in.flight", limiter, AdaptiveLimiter::inFlight)
+                    .description("Admitted requests in progress").tag("endpoint", endpoint).register(registry);
+            Gauge.builder("library.admission.queue.depth", limiter, AdaptiveLimiter::queued)
+                    .description("Requests waiting for admission").tag("endpoint", endpoint).register(registry);
+            for (String reason : new String[]{"rate_limited", "queue_full", "timed_out"}) {
+                shed.put(endpoint + "/" + reason, Counter.builder("library.admission.shed")
+                        .description("Requests rejected by admission control")
+                        .tag("endpoint", endpoint).tag("reason", reason).register(registry));
+            }
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return endpointOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String endpoint = endpointOf(request);
+
+        long wait = rateLimiter.tryAcquire(clients.of(request));
+        if (wait > 0) {
+            shed.get(endpoint + "/rate_limited").increment();
+            // Whole seconds, rounded up so a client retrying on time finds a token
+            long retryAfter = (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Long.toString(retryAfter), RATE_LIMITED);
+            return;
+        }
+
+        AdaptiveLimiter limiter = limiters.get(endpoint);
+        AdaptiveLimiter.Result result;
+        try {
+            result = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = AdaptiveLimiter.Result.TIMED_OUT;
+        }
+        if (result != AdaptiveLimiter.Result.ADMITTED) {
+            shed.get(endpoint + (result == AdaptiveLimiter.Result.QUEUE_FULL ? "/queue_full" : "/timed_out")).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, overloadRetryAfter, OVERLOADED);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    // Only the write paths kiosks burst at opening time; batch imports are long-running by design
+    static String endpointOf(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return null;
+        }
+        return switch (request.getRequestURI().substring(request.getContextPath().length())) {
+            case "/api/library/borrow", "/api/library/borrow-by-isbn", "/api/library/holds" -> BORROW;
+            case "/api/library/borrow/batch" -> BORROW_BATCH;
+            case "/api/library/borrowers", "/api/library/books" -> REGISTRATION;
+            default -> null;
+        };
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String retryAfter, byte[] body)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
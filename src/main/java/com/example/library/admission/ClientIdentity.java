@@ -0,0 +1,33 @@
+package com.example.library.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Who a request comes from, for per-client buckets and replica pinning. The client header is only
+ * believed when the request arrives from one of the trusted proxies, which set it; anyone else could
+ * pick a fresh id per request, so direct callers are known by their remote address.
+ */
+public class ClientIdentity {
+
+    private final String header;
+    private final Set<String> trustedProxies;
+
+    public ClientIdentity(String header, Collection<String> trustedProxies) {
+        this.header = header;
+        this.trustedProxies = Set.copyOf(trustedProxies);
+    }
+
+    public String of(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        if (trustedProxies.contains(remote)) {
+            String client = request.getHeader(header);
+            if (client != null && !client.isBlank()) {
+                return client;
+            }
+        }
+        return remote;
+    }
+}
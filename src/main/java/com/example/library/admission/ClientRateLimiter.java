@@ -0,0 +1,64 @@
+package com.example.library.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Token bucket per client: {@code ratePerSecond} tokens are added each second up to {@code burst}, and
+ * each request takes one. Buckets of clients that went quiet are dropped, so the map stays bounded.
+ * A rate of 0 disables the limit.
+ */
+public class ClientRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final Cache<String, Bucket> buckets;
+
+    public ClientRateLimiter(double ratePerSecond, int burst, int maxClients) {
+        this.tokensPerNano = ratePerSecond / NANOS_PER_SECOND;
+        this.burst = Math.max(1, burst);
+        // A bucket idle long enough to refill completely is the same as a new one
+        long refillNanos = enabled() ? (long) Math.ceil(this.burst / tokensPerNano) : 0;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(refillNanos).plusSeconds(1))
+                .build();
+    }
+
+    public boolean enabled() {
+        return tokensPerNano > 0;
+    }
+
+    /** Takes a token for {@code client}. Returns 0 when admitted, otherwise the nanos until a token is due. */
+    public long tryAcquire(String client) {
+        if (!enabled()) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        return buckets.get(client, k -> new Bucket(burst, now)).take(now, tokensPerNano, burst);
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        synchronized long take(long now, double tokensPerNano, double burst) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * In-process Caffeine caches in front of the repositories. The manager is transaction-aware:
+ * puts and deferred evictions only apply after commit, so uncommitted state is never cached.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+    public static final String BORROWERS = "borrowers";
+    public static final String BORROWER_EMAILS = "borrowerEmails";
+    public static final String TITLES = "titles";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${library.cache.spec}") String spec) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        caffeine.setCacheSpecification(spec);
+        caffeine.setAllowNullValues(false);
+        caffeine.setCacheNames(List.of(BOOKS, BORROWERS, BORROWER_EMAILS, TITLES));
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
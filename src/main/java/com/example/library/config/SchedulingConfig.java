@@ -0,0 +1,10 @@
+package com.example.library.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Background jobs (e.g. draining the loan event queue) run on Spring's scheduler thread. */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
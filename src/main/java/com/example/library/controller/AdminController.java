@@ -0,0 +1,63 @@
+package com.example.library.controller;
+
+import com.example.library.dto.SnapshotResult;
+import com.example.library.service.CatalogSnapshotService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final CacheManager cacheManager;
+    private final CatalogSnapshotService snapshotService;
+
+    public AdminController(CacheManager cacheManager, CatalogSnapshotService snapshotService) {
+        this.cacheManager = cacheManager;
+        this.snapshotService = snapshotService;
+    }
+
+    // Files live in library.snapshot.dir as <name>.snap
+    @PostMapping("/snapshots/{name}/export")
+    public SnapshotResult exportSnapshot(@PathVariable String name) {
+        return snapshotService.export(name);
+    }
+
+    @PostMapping("/snapshots/{name}/import")
+    public SnapshotResult importSnapshot(@PathVariable String name) {
+        return snapshotService.importSnapshot(name);
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof TransactionAwareCacheDecorator decorator) {
+                cache = decorator.getTargetCache();
+            }
+            if (cache != null
+                    && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                CacheStats stats = caffeine.stats();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("size", caffeine.estimatedSize());
+                entry.put("hits", stats.hitCount());
+                entry.put("misses", stats.missCount());
+                entry.put("hitRate", stats.hitRate());
+                entry.put("evictions", stats.evictionCount());
+                body.put(name, entry);
+            }
+        }
+        return body;
+    }
+}
@@ -1,67 +1,216 @@
 package com.example.library.controller;
 
+import com.example.library.dto.BatchResult;
+import com.example.library.dto.BookPage;
+import com.example.library.dto.BookView;
+import com.example.library.dto.CirculationSummary;
+import com.example.library.dto.LoanBatchRequest;
+import com.example.library.dto.LoanBatchResult;
+import com.example.library.dto.SearchPage;
 import com.example.library.model.Book;
 import com.example.library.model.Borrower;
+import com.example.library.model.TitleLoanCount;
+import com.example.library.service.BulkImportService;
 import com.example.library.service.LibraryService;
+import com.example.library.service.Outcome;
+import com.example.library.service.Problem;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/library")
 public class LibraryController {
 
+    // Rejections are routine (e.g. a copy lent a moment ago), so their responses are built once
+    private static final Map<Problem, ResponseEntity<String>> REJECTIONS = new EnumMap<>(Problem.class);
+    private static final ResponseEntity<String> BORROWED = ResponseEntity.ok("Book borrowed successfully.");
+    private static final ResponseEntity<String> RETURNED = ResponseEntity.ok("Book returned.");
+
+    static {
+        for (Problem problem : Problem.values()) {
+            HttpStatus status = switch (problem.kind()) {
+                case NOT_FOUND -> HttpStatus.NOT_FOUND;
+                case CONFLICT -> HttpStatus.CONFLICT;
+                case REJECTED -> HttpStatus.BAD_REQUEST;
+            };
+            REJECTIONS.put(problem, ResponseEntity.status(status).body(problem.message()));
+        }
+    }
+
     private final LibraryService libraryService;
+    private final BulkImportService bulkImportService;
+    private final ObjectWriter bookWriter;
+    private final ObjectReader bookReader;
+    private final ObjectReader borrowerReader;
 
-    public LibraryController(LibraryService libraryService) {
+    public LibraryController(LibraryService libraryService, BulkImportService bulkImportService,
+                             ObjectMapper objectMapper) {
         this.libraryService = libraryService;
+        this.bulkImportService = bulkImportService;
+        // NDJSON: one document per row, and never close the response stream between rows
+        this.bookWriter = objectMapper.writerFor(BookView.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.bookReader = objectMapper.readerFor(Book.class);
+        this.borrowerReader = objectMapper.readerFor(Borrower.class);
     }
 
     @PostMapping("/borrowers")
     public ResponseEntity<?> registerBorrower(@Valid @RequestBody Borrower borrower) {
+        return respond(libraryService.registerBorrower(borrower), saved -> new ResponseEntity<>(saved, HttpStatus.CREATED));
+    }
+
+    // Accepts a JSON array or NDJSON; rows are read one at a time, never buffered as a whole
+    @PostMapping(value = "/borrowers/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BatchResult registerBorrowers(InputStream body) throws IOException {
+        return bulkImportService.importBorrowers(borrowerReader.readValues(body));
+    }
+
+    @PostMapping(value = "/books/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BatchResult registerBooks(InputStream body) throws IOException {
+        return bulkImportService.importBooks(bookReader.readValues(body));
+    }
+
+    @PostMapping("/books")
+    public ResponseEntity<?> registerBook(@Valid @RequestBody Book book) {
+        return respond(libraryService.registerBook(book), saved -> new ResponseEntity<>(saved, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/books")
+    public ResponseEntity<?> getBooks(@RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "" + LibraryService.DEFAULT_PAGE_SIZE) int size) {
         try {
-            return new ResponseEntity<>(libraryService.registerBorrower(borrower), HttpStatus.CREATED);
-        } catch (IllegalStateException e) {
+            BookPage page = libraryService.getBooksPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
-    @PostMapping("/books")
-    public ResponseEntity<?> registerBook(@Valid @RequestBody Book book) {
+    @GetMapping("/books/search")
+    public ResponseEntity<?> searchBooks(@RequestParam String q,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size) {
         try {
-            return new ResponseEntity<>(libraryService.registerBook(book), HttpStatus.CREATED);
-        } catch (IllegalStateException e) {
+            SearchPage results = libraryService.searchBooks(q, page, size);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
-    @GetMapping("/books")
-    public List<Book> getBooks() {
-        return libraryService.getAllBooks();
+    @GetMapping("/books/{isbn}/availability")
+    public ResponseEntity<?> getAvailability(@PathVariable String isbn) {
+        return respond(libraryService.getAvailability(isbn), ResponseEntity::ok);
+    }
+
+    @GetMapping("/stats")
+    public CirculationSummary getStats() {
+        return libraryService.getCirculationStats();
+    }
+
+    @GetMapping("/books/{bookId}")
+    public ResponseEntity<?> getBook(@PathVariable Long bookId) {
+        return respond(libraryService.getBook(bookId), ResponseEntity::ok);
+    }
+
+    @GetMapping("/borrowers/{borrowerId}")
+    public ResponseEntity<?> getBorrower(@PathVariable Long borrowerId) {
+        return respond(libraryService.getBorrower(borrowerId), ResponseEntity::ok);
+    }
+
+    @GetMapping("/borrowers/{borrowerId}/books")
+    public ResponseEntity<?> getBorrowedBooks(@PathVariable Long borrowerId) {
+        return respond(libraryService.getBorrowedBooks(borrowerId), ResponseEntity::ok);
+    }
+
+    @PostMapping("/borrowers/{borrowerId}/return-all")
+    public ResponseEntity<?> returnAllBooks(@PathVariable Long borrowerId) {
+        return respond(libraryService.returnAllBooks(borrowerId), ResponseEntity::ok);
+    }
+
+    @GetMapping("/borrowers/{borrowerId}/loans")
+    public ResponseEntity<?> getLoans(@PathVariable Long borrowerId,
+                                      @RequestParam(defaultValue = "false") boolean current,
+                                      @RequestParam(defaultValue = "" + LibraryService.DEFAULT_PAGE_SIZE) int size) {
+        return respond(libraryService.getLoans(borrowerId, current, size), ResponseEntity::ok);
+    }
+
+    @GetMapping("/loans/most-borrowed")
+    public List<TitleLoanCount> getMostBorrowed(@RequestParam(defaultValue = "10") int size) {
+        return libraryService.getMostBorrowed(size);
+    }
+
+    @GetMapping(value = "/books/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBooks() {
+        StreamingResponseBody body = out -> libraryService.streamAllBooks(book -> {
+            try {
+                bookWriter.writeValue(out, book);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping("/borrow")
     public ResponseEntity<?> borrowBook(@RequestParam Long borrowerId, @RequestParam Long bookId) {
-        try {
-            libraryService.borrowBook(borrowerId, bookId);
-            return ResponseEntity.ok("Book borrowed successfully.");
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        return respond(libraryService.borrowBook(borrowerId, bookId), done -> BORROWED);
+    }
+
+    @PostMapping("/borrow/batch")
+    public ResponseEntity<?> borrowBooks(@Valid @RequestBody LoanBatchRequest request) {
+        if (request.borrowerId() == null) {
+            return ResponseEntity.badRequest().body("borrowerId is required.");
         }
+        return respond(libraryService.borrowBooks(request.borrowerId(), request.bookIds()), ResponseEntity::ok);
+    }
+
+    @PostMapping("/borrow-by-isbn")
+    public ResponseEntity<?> borrowByIsbn(@RequestParam Long borrowerId, @RequestParam String isbn) {
+        return respond(libraryService.borrowByIsbn(borrowerId, isbn), ResponseEntity::ok);
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<?> placeHold(@RequestParam Long borrowerId, @RequestParam String isbn) {
+        return respond(libraryService.placeHold(borrowerId, isbn), hold -> new ResponseEntity<>(hold, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/borrowers/{borrowerId}/holds")
+    public ResponseEntity<?> getHolds(@PathVariable Long borrowerId) {
+        return respond(libraryService.getHolds(borrowerId), ResponseEntity::ok);
+    }
+
+    @PostMapping("/return/batch")
+    public LoanBatchResult returnBooks(@Valid @RequestBody LoanBatchRequest request) {
+        return libraryService.returnBooks(request.bookIds());
     }
 
     @PostMapping("/return/{bookId}")
     public ResponseEntity<?> returnBook(@PathVariable Long bookId) {
-        try {
-            libraryService.returnBook(bookId);
-            return ResponseEntity.ok("Book returned.");
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        return respond(libraryService.returnBook(bookId), done -> RETURNED);
+    }
+
+    // NOT_FOUND -> 404, CONFLICT -> 409, REJECTED -> 400, each with the problem's message as the body
+    private static <T> ResponseEntity<?> respond(Outcome<T> outcome, Function<T, ResponseEntity<?>> onOk) {
+        if (outcome instanceof Outcome.Ok<T> ok) {
+            return onOk.apply(ok.value());
         }
+        return REJECTIONS.get(((Outcome.Failed<T>) outcome).problem());
     }
 }
@@ -0,0 +1,13 @@
+package com.example.library.dto;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+
+/** Error body written by {@code GlobalExceptionHandler}; same fields as the map it replaces. */
+public record ApiError(Instant timestamp, int status, String error, String message) {
+
+    public static ApiError of(HttpStatus status, String message) {
+        return new ApiError(Instant.now(), status.value(), status.getReasonPhrase(), message);
+    }
+}
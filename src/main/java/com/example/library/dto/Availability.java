@@ -0,0 +1,5 @@
+package com.example.library.dto;
+
+/** Copies of one ISBN by state; {@code onHold} counts free copies set aside for a hold. */
+public record Availability(String isbn, long copies, long available, long onLoan, long onHold) {
+}
@@ -0,0 +1,13 @@
+package com.example.library.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Rows are numbered from 1 in the order they were received;
+ * every row that was not inserted has an entry in {@code errors}.
+ */
+public record BatchResult(int received, int accepted, List<RowError> errors) {
+
+    public record RowError(int row, String message) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.library.dto;
+
+import java.util.List;
+
+/**
+ * One page of the catalog. {@code nextCursor} is an opaque token to pass back as {@code cursor};
+ * it is {@code null} on the last page.
+ */
+public record BookPage(List<BookView> items, String nextCursor) {
+}
@@ -0,0 +1,10 @@
+package com.example.library.dto;
+
+/**
+ * Read-only view of a copy, filled by a JPQL constructor expression. It is never a managed entity,
+ * so listings skip entity hydration, persistence-context snapshots and dirty checking. Serializes
+ * to the same fields as {@link com.example.library.model.Book}.
+ */
+public record BookView(Long id, String isbn, String title, String author, Long currentBorrowerId,
+                       Long heldForBorrowerId, Long version) {
+}
@@ -0,0 +1,9 @@
+package com.example.library.dto;
+
+/**
+ * Read-only view of a borrower, filled by a JPQL constructor expression. Immutable, so the lookup cache
+ * can hand the same instance to every reader. Serializes to the same fields as
+ * {@link com.example.library.model.Borrower}.
+ */
+public record BorrowerView(Long id, String name, String email) {
+}
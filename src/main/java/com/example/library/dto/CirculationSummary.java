@@ -0,0 +1,11 @@
+package com.example.library.dto;
+
+import java.time.Instant;
+
+/**
+ * Catalog-wide circulation figures. {@code activeBorrowers} have at least one copy on loan;
+ * {@code reconciledAt} is when the counters were last checked against the database.
+ */
+public record CirculationSummary(long titles, long copies, long available, long onLoan, long onHold,
+                                 long borrowers, long activeBorrowers, Instant reconciledAt) {
+}
@@ -0,0 +1,18 @@
+package com.example.library.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * A stack of copies scanned at a checkout desk. {@code borrowerId} is required to borrow
+ * and ignored on return.
+ */
+public record LoanBatchRequest(
+        Long borrowerId,
+        @NotEmpty @Size(max = LoanBatchRequest.MAX_BOOKS) List<@NotNull Long> bookIds) {
+
+    public static final int MAX_BOOKS = 200;
+}
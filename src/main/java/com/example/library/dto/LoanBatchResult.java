@@ -0,0 +1,12 @@
+package com.example.library.dto;
+
+import java.util.List;
+
+/** Per-copy outcome of a batch borrow or return, in request order (duplicates reported once). */
+public record LoanBatchResult(int borrowed, int returned, List<Item> items) {
+
+    public enum Status { BORROWED, RETURNED, ALREADY_BORROWED, ON_HOLD, NOT_BORROWED, LIMIT_REACHED, NOT_FOUND }
+
+    public record Item(Long bookId, Status status) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.library.dto;
+
+import com.example.library.model.Title;
+
+import java.util.List;
+
+/**
+ * One page of ranked search results, best match first. {@code total} counts every match,
+ * so the last page is {@code (total - 1) / size}.
+ */
+public record SearchPage(List<Title> items, int page, int total) {
+}
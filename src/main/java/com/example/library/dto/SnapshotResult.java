@@ -0,0 +1,8 @@
+package com.example.library.dto;
+
+/**
+ * Outcome of a catalog snapshot export or import: rows written to the file, or rows inserted from it
+ * (rows already present from an earlier, interrupted import are not counted).
+ */
+public record SnapshotResult(String name, long titles, long borrowers, long books, long bytes, long millis) {
+}
@@ -1,50 +1,37 @@
 package com.example.library.exception;
 
+import com.example.library.dto.ApiError;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-
+// Business rejections are returned by LibraryService as Outcomes and never reach this class
 @ControllerAdvice // This annotation makes this class handle exceptions for ALL controllers
 public class GlobalExceptionHandler {
 
-    // Handle the "Email already registered" or "Metadata mismatch" errors
     @ExceptionHandler(IllegalStateException.class)
-    public ResponseEntity<Object> handleIllegalState(IllegalStateException ex) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.CONFLICT.value()); // 409 Conflict
-        body.put("error", "Conflict");
-        body.put("message", ex.getMessage()); // Returns your custom message: "Email already registered."
+    public ResponseEntity<ApiError> handleIllegalState(IllegalStateException ex) {
+        return new ResponseEntity<>(ApiError.of(HttpStatus.CONFLICT, ex.getMessage()), HttpStatus.CONFLICT);
+    }
 
-        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    // Handle a stale Book save that lost the race to a concurrent borrow/return (@Version check)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleOptimisticLock(ObjectOptimisticLockingFailureException ex) {
+        return new ResponseEntity<>(ApiError.of(HttpStatus.CONFLICT, "The record was modified concurrently. Please retry."),
+                HttpStatus.CONFLICT);
     }
 
-    // Handle "Book not found" or "Borrower not found"
     @ExceptionHandler(IllegalArgumentException.class)
-    public ResponseEntity<Object> handleIllegalArgument(IllegalArgumentException ex) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.NOT_FOUND.value()); // 404 Not Found
-        body.put("error", "Not Found");
-        body.put("message", ex.getMessage());
-
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    public ResponseEntity<ApiError> handleIllegalArgument(IllegalArgumentException ex) {
+        return new ResponseEntity<>(ApiError.of(HttpStatus.NOT_FOUND, ex.getMessage()), HttpStatus.NOT_FOUND);
     }
 
     // Handle generic system errors (RuntimeExceptions)
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<Object> handleRuntimeException(RuntimeException ex) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value()); // 500
-        body.put("error", "Internal Server Error");
-        body.put("message", ex.getMessage());
-
-        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+    public ResponseEntity<ApiError> handleRuntimeException(RuntimeException ex) {
+        return new ResponseEntity<>(ApiError.of(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage()),
+                HttpStatus.INTERNAL_SERVER_ERROR);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.example.library.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Markers for high-volume success lines. {@link SamplingTurboFilter} keeps one in N of the
+ * INFO-and-below events carrying them; warnings and errors are never sampled.
+ */
+public final class LogMarkers {
+
+    public static final Marker BORROW = MarkerFactory.getMarker("borrow");
+    public static final Marker RETURN = MarkerFactory.getMarker("return");
+    public static final Marker LIST = MarkerFactory.getMarker("list");
+
+    private LogMarkers() {
+    }
+}
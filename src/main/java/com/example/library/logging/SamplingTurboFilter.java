@@ -0,0 +1,53 @@
+package com.example.library.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one in N log events per marker, configured in logback-spring.xml as
+ * {@code <rates>borrow=100,return=100,list=10</rates>}. Each log statement (marker plus message
+ * template) is counted separately, so a request line and its response line are sampled alike.
+ * Runs before the event is built, so a dropped line costs a map lookup and an increment.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final Map<String, Integer> rates = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public void setRates(String spec) {
+        rates.clear();
+        for (String entry : spec.split(",")) {
+            String[] pair = entry.split("=");
+            if (pair.length != 2) {
+                addWarn("Ignoring malformed sampling rate '" + entry + "'");
+                continue;
+            }
+            int rate = Integer.parseInt(pair[1].trim());
+            if (rate > 1) {
+                rates.put(pair[0].trim(), rate);
+            }
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks; let those through so callers still see the level
+        if (marker == null || format == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        Integer rate = rates.get(marker.getName());
+        if (rate == null) {
+            return FilterReply.NEUTRAL;
+        }
+        long seen = counters.computeIfAbsent(marker.getName() + '|' + format, k -> new AtomicLong())
+                .getAndIncrement();
+        return seen % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.library.metrics;
+
+import com.example.library.service.AvailabilityIndex;
+import com.example.library.service.HoldQueue;
+import com.example.library.service.LoanEventWriter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Free copies known to the in-memory index; a drift from the DB count points at index staleness
+    @Bean
+    public MeterBinder availabilityIndexMetrics(AvailabilityIndex availabilityIndex) {
+        return registry -> Gauge.builder("library.availability.free.copies", availabilityIndex, AvailabilityIndex::availableCount)
+                .description("Free copies tracked by the availability index")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder holdQueueMetrics(HoldQueue holdQueue) {
+        return registry -> {
+            Gauge.builder("library.holds.waiting", holdQueue, HoldQueue::waitingCount)
+                    .description("Holds waiting for a copy")
+                    .register(registry);
+            Gauge.builder("library.holds.ready", holdQueue, HoldQueue::readyCount)
+                    .description("Copies set aside for a hold and not yet collected")
+                    .register(registry);
+        };
+    }
+
+    // Queue depth shows the writer falling behind; any dropped event means loan history has a gap
+    @Bean
+    public MeterBinder loanEventMetrics(LoanEventWriter loanEventWriter) {
+        return registry -> {
+            Gauge.builder("library.loans.events.pending", loanEventWriter, LoanEventWriter::pending)
+                    .description("Loan events queued but not yet written")
+                    .register(registry);
+            FunctionCounter.builder("library.loans.events.dropped", loanEventWriter, LoanEventWriter::dropped)
+                    .description("Loan events dropped because the queue was full")
+                    .register(registry);
+        };
+    }
+}
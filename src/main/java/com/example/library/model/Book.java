@@ -1,26 +1,44 @@
 package com.example.library.model;
 
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import io.swagger.v3.oas.annotations.media.Schema;
 
+/**
+ * A physical copy. ISBN, title and author live on the shared {@link Title}; the JSON shape
+ * ({@code isbn}, {@code title}, {@code author} at the top level) is unchanged.
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_isbn", columnList = "isbn"),
+        @Index(name = "idx_book_current_borrower", columnList = "currentBorrowerId")
+})
 @Data
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
 	@Schema(accessMode = Schema.AccessMode.READ_ONLY)
     private Long id;
 
-    @NotBlank
-    private String isbn;
+    @NotNull
+    @Valid
+    @JsonUnwrapped
+    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @JoinColumn(name = "isbn", nullable = false)
+    private Title title;
 
-    @NotBlank
-    private String title;
+    private Long currentBorrowerId; // Nullable by default
 
-    @NotBlank
-    private String author;
+    // Set while a free copy waits for the borrower of a READY hold; only that borrower can claim it
+    private Long heldForBorrowerId;
 
-    private Long currentBorrowerId; // Nullable by default
+    // Bumped by every claim/release, so a stale entity save fails instead of overwriting a loan
+    @Version
+	@Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
 }
@@ -10,7 +10,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 @Data 
 public class Borrower {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "borrower_seq")
+    @SequenceGenerator(name = "borrower_seq", sequenceName = "borrower_seq", allocationSize = 50)
 	@Schema(accessMode = Schema.AccessMode.READ_ONLY)
     private Long id;
 
@@ -0,0 +1,54 @@
+package com.example.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A borrower's place in the queue for an ISBN. Waiting holds are served first come, first served:
+ * a freed copy is set aside for the oldest one, which stays {@code READY} until {@code readyUntil}.
+ * A collected hold becomes {@code FULFILLED}; an uncollected one {@code EXPIRED}, and the copy moves on.
+ */
+@Entity
+@Table(name = "book_hold", indexes = {
+        @Index(name = "idx_hold_queue", columnList = "isbn, status, placedAt"),
+        @Index(name = "idx_hold_borrower", columnList = "borrowerId, placedAt")
+})
+@Data
+@NoArgsConstructor
+public class Hold {
+
+    public enum Status { WAITING, READY, FULFILLED, EXPIRED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hold_seq")
+    @SequenceGenerator(name = "hold_seq", sequenceName = "hold_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String isbn;
+
+    @Column(nullable = false)
+    private Long borrowerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false)
+    private Instant placedAt;
+
+    // Set once READY: the copy set aside and the end of the pickup window
+    private Long bookId;
+
+    private Instant readyUntil;
+
+    public Hold(String isbn, Long borrowerId, Instant placedAt) {
+        this.isbn = isbn;
+        this.borrowerId = borrowerId;
+        this.status = Status.WAITING;
+        this.placedAt = placedAt;
+    }
+}
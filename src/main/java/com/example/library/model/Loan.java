@@ -0,0 +1,46 @@
+package com.example.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Projection of the loan event log: one row per loan, open while {@code returnedAt} is null.
+ * Indexed by borrower so a borrower's loans are read without scanning the log.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_loan_borrower", columnList = "borrowerId, borrowedAt"),
+        @Index(name = "idx_loan_book_open", columnList = "bookId, returnedAt")
+})
+@Data
+@NoArgsConstructor
+public class Loan {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    private String isbn;
+
+    @Column(nullable = false)
+    private Long borrowerId;
+
+    @Column(nullable = false)
+    private Instant borrowedAt;
+
+    private Instant returnedAt;
+
+    public Loan(Long bookId, String isbn, Long borrowerId, Instant borrowedAt) {
+        this.bookId = bookId;
+        this.isbn = isbn;
+        this.borrowerId = borrowerId;
+        this.borrowedAt = borrowedAt;
+    }
+}
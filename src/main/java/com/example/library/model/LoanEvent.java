@@ -0,0 +1,48 @@
+package com.example.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One borrow or return, as it happened. Rows are only ever inserted; {@link Loan} and
+ * {@link TitleLoanCount} are rolled up from them. Ids are plain columns, not foreign keys,
+ * so the history outlives the copies and borrowers it mentions.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_loan_event_book", columnList = "bookId, occurredAt"))
+@Data
+@NoArgsConstructor
+public class LoanEvent {
+
+    public enum Type { BORROWED, RETURNED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_event_seq")
+    @SequenceGenerator(name = "loan_event_seq", sequenceName = "loan_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    private String isbn;
+
+    // For returns, filled in from the open loan when the event is written
+    private Long borrowerId;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    public LoanEvent(Type type, Long bookId, Long borrowerId, Instant occurredAt) {
+        this.type = type;
+        this.bookId = bookId;
+        this.borrowerId = borrowerId;
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.library.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Bibliographic record shared by every copy of an ISBN. The ISBN is the primary key,
+ * so the metadata consistency check on registration is a single indexed lookup.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class Title implements Persistable<String> {
+    @Id
+    @NotBlank
+    private String isbn;
+
+    @NotBlank
+    @Column(nullable = false)
+    private String title;
+
+    @NotBlank
+    @Column(nullable = false)
+    private String author;
+
+    // The id is assigned, so tell Spring Data when to persist instead of merge (saves a SELECT per insert)
+    @Transient
+    @JsonIgnore
+    private boolean isNew = true;
+
+    public Title(String isbn, String title, String author) {
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+    }
+
+    /** Same ISBN metadata, compared the way registration always has: case-insensitively. */
+    public boolean matches(Title other) {
+        return title.equalsIgnoreCase(other.getTitle()) && author.equalsIgnoreCase(other.getAuthor());
+    }
+
+    @Override
+    @JsonIgnore
+    public String getId() {
+        return isbn;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
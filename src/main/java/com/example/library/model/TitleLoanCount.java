@@ -0,0 +1,20 @@
+package com.example.library.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Projection of the loan event log: how many times copies of an ISBN have been lent. */
+@Entity
+@Table(indexes = @Index(name = "idx_title_loan_count_loans", columnList = "loans"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TitleLoanCount {
+
+    @Id
+    private String isbn;
+
+    private long loans;
+}
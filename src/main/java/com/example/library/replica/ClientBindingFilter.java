@@ -0,0 +1,37 @@
+package com.example.library.replica;
+
+import com.example.library.admission.ClientIdentity;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds each catalog API request to its client (identified as admission control does), so
+ * {@link ReplicaRoutingDataSource} can pin a client that just wrote to the primary. Admin endpoints
+ * are not bound and always use the primary.
+ */
+public class ClientBindingFilter extends OncePerRequestFilter {
+
+    private final ClientIdentity clients;
+
+    public ClientBindingFilter(ClientIdentity clients) {
+        this.clients = clients;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/library/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (ReplicaRoutingDataSource.ClientScope scope = ReplicaRoutingDataSource.bindClient(clients.of(request))) {
+            chain.doFilter(request, response);
+        }
+    }
+}
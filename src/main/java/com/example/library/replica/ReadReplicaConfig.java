@@ -0,0 +1,99 @@
+package com.example.library.replica;
+
+import com.example.library.admission.ClientIdentity;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write splitting, on when {@code library.datasource.replicas.urls} lists at least one replica.
+ * {@code spring.datasource.*} still configures the primary; each replica gets its own pool with the
+ * primary's settings, {@code replicas.pool-size} connections and, if set, its own credentials.
+ */
+@Configuration
+@ConditionalOnExpression("!'${library.datasource.replicas.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource, MeterRegistry registry,
+            @Value("${library.datasource.replicas.urls}") List<String> urls,
+            @Value("${library.datasource.replicas.username:}") String username,
+            @Value("${library.datasource.replicas.password:}") String password,
+            @Value("${library.datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${library.datasource.replicas.max-lag:2s}") Duration maxLag,
+            @Value("${library.admission.client.max-clients:100000}") int maxClients) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(url);
+            if (!username.isBlank()) {
+                config.setUsername(username);
+                config.setPassword(password);
+            }
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setMaximumPoolSize(poolSize);
+            config.setMinimumIdle(Math.min(config.getMinimumIdle(), poolSize));
+            config.setReadOnly(true);
+            // A replica that is down at startup is skipped at runtime rather than failing the boot
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, maxClients, registry);
+    }
+
+    // What JPA, JdbcTemplate and Flyway see; defers the routing decision to the first statement
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                        ObjectProvider<TransactionManagerCustomizers> customizers) {
+        ReplicaTransactionManager transactionManager = new ReplicaTransactionManager(entityManagerFactory);
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ClientBindingFilter> clientBindingFilter(
+            @Value("${library.admission.client.header:X-Client-Id}") String clientHeader,
+            @Value("${library.admission.client.trusted-proxies:}") List<String> trustedProxies) {
+        FilterRegistrationBean<ClientBindingFilter> registration = new FilterRegistrationBean<>(
+                new ClientBindingFilter(new ClientIdentity(clientHeader, trustedProxies)));
+        // Right after admission control, before anything touches the database
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
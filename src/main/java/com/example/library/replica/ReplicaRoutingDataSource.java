@@ -0,0 +1,132 @@
+package com.example.library.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends a connection to a read replica only when all of these hold, and to the primary otherwise:
+ * <ul>
+ *   <li>the transaction is read-only and labelled {@link #REPLICA_READS} (see {@link ReplicaTransactionManager})</li>
+ *   <li>it runs for a client request (see {@link #bindClient}); startup and scheduled jobs rebuild in-memory
+ *   state and always read the primary</li>
+ *   <li>that client has not committed a write within {@code maxLag}, so it reads its own borrows and returns</li>
+ * </ul>
+ * The decision is taken when the first statement needs a physical connection, which is why this sits
+ * behind a {@code LazyConnectionDataSourceProxy}. Replicas are used round-robin; one that cannot hand out
+ * a connection is skipped for the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    /** Transaction label for read-only service paths that can tolerate replica lag. */
+    public static final String REPLICA_READS = "replica-reads";
+
+    private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<? extends DataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    // Clients that committed a write within maxLag; the entry expiring is the end of their pin
+    private final Cache<String, Boolean> recentWriters;
+    private final Counter toPrimary;
+    private final Counter toReplica;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, Duration maxLag,
+                                    int maxClients, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(maxLag).maximumSize(maxClients).build();
+        this.toPrimary = Counter.builder("library.datasource.connections").description("Physical connections by target")
+                .tag("target", "primary").register(registry);
+        this.toReplica = Counter.builder("library.datasource.connections").description("Physical connections by target")
+                .tag("target", "replica").register(registry);
+    }
+
+    /**
+     * Attributes the work on this thread to {@code client} until the returned scope is closed. Set per
+     * request by {@link ClientBindingFilter}.
+     */
+    public static ClientScope bindClient(String client) {
+        String previous = CLIENT.get();
+        CLIENT.set(client);
+        return () -> {
+            if (previous != null) {
+                CLIENT.set(previous);
+            } else {
+                CLIENT.remove();
+            }
+        };
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicaAllowed()) {
+            DataSource replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            try {
+                Connection connection = replica.getConnection();
+                toReplica.increment();
+                return connection;
+            } catch (SQLException e) {
+                log.warn("Read replica unavailable, reading from the primary: {}", e.getMessage());
+            }
+        }
+        toPrimary.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private boolean replicaAllowed() {
+        String client = CLIENT.get();
+        if (client == null || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinAfterCommit(client);
+            return false;
+        }
+        return ReplicaTransactionManager.isReplicaRead() && recentWriters.getIfPresent(client) == null;
+    }
+
+    // Pinned from commit, when the write becomes visible on the primary, until the replicas have caught up
+    private void pinAfterCommit(String client) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        });
+    }
+
+    /** Restores the previous client binding; never throws. */
+    @FunctionalInterface
+    public interface ClientScope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
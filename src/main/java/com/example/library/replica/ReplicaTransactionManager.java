@@ -0,0 +1,41 @@
+package com.example.library.replica;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+/**
+ * JPA transaction manager that tells {@link ReplicaRoutingDataSource} whether the transaction it is
+ * serving was declared with the {@link ReplicaRoutingDataSource#REPLICA_READS} label. Only new
+ * transactions carry a label; a labelled method joining an outer transaction uses the outer one's target.
+ */
+public class ReplicaTransactionManager extends JpaTransactionManager {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    public ReplicaTransactionManager(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(REPLICA_READ.get());
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        if (definition.isReadOnly() && definition instanceof TransactionAttribute attribute
+                && attribute.getLabels().contains(ReplicaRoutingDataSource.REPLICA_READS)) {
+            REPLICA_READ.set(Boolean.TRUE);
+        } else {
+            REPLICA_READ.remove();
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        REPLICA_READ.remove();
+        super.doCleanupAfterCompletion(transaction);
+    }
+}
@@ -1,11 +1,167 @@
 package com.example.library.repository;
 
+import com.example.library.config.CacheConfig;
+import com.example.library.dto.BookView;
 import com.example.library.model.Book;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
-    List<Book> findByIsbn(String isbn);
-	Optional<Book> findFirstByIsbn(String isbn);
-}
\ No newline at end of file
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    void deleteAll();
+
+    // Titles are joined in the same query rather than loaded one by one
+    @Override
+    @EntityGraph(attributePaths = "title")
+    List<Book> findAll();
+
+    @EntityGraph(attributePaths = "title")
+    List<Book> findByTitleIsbn(String isbn);
+
+    // Read-only listings select straight into BookView: no entity is hydrated or tracked
+    String BOOK_VIEW = "select new com.example.library.dto.BookView(b.id, t.isbn, t.title, t.author, " +
+            "b.currentBorrowerId, b.heldForBorrowerId, b.version) from Book b join b.title t ";
+
+    // Read-through by id for display; borrow decisions always go through claimCopy. A view, not the entity,
+    // so no caller can change the cached copy under the others
+    @Cacheable(cacheNames = CacheConfig.BOOKS, unless = "#result == null")
+    @Query(BOOK_VIEW + "where b.id = :id")
+    Optional<BookView> findViewById(@Param("id") Long id);
+
+    // Keyset page: seeks past the last id of the previous page instead of using OFFSET
+    @Query(BOOK_VIEW + "where b.id > :afterId order by b.id")
+    List<BookView> findViewsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Cursor-backed scan of the whole catalog; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(BOOK_VIEW + "order by b.id")
+    Stream<BookView> streamViews();
+
+    // Atomically lends a copy: matches only if the copy is free (and not set aside for someone else), the
+    // borrower exists and holds fewer than maxLoans copies (counted on idx_book_current_borrower).
+    // Returns rows updated (0 or 1).
+    @Caching(evict = {
+            // Drop the entry now for readers in this transaction, and again after commit
+            // in case a concurrent reader re-cached the old row in between
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId")
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.currentBorrowerId = :borrowerId, b.heldForBorrowerId = null, b.version = b.version + 1 " +
+           "where b.id = :bookId and b.currentBorrowerId is null " +
+           "and (b.heldForBorrowerId is null or b.heldForBorrowerId = :borrowerId) " +
+           "and exists (select 1 from Borrower br where br.id = :borrowerId) " +
+           "and (select count(l) from Book l where l.currentBorrowerId = :borrowerId) < :maxLoans")
+    int claimCopy(@Param("bookId") Long bookId, @Param("borrowerId") Long borrowerId, @Param("maxLoans") long maxLoans);
+
+    Optional<Book> findFirstByTitleIsbnAndCurrentBorrowerIdIsNullAndHeldForBorrowerIdIsNull(String isbn);
+
+    // All three served by idx_book_current_borrower: O(loans), not O(catalog)
+    @EntityGraph(attributePaths = "title")
+    List<Book> findByCurrentBorrowerIdOrderByIdAsc(Long borrowerId);
+
+    @Query(BOOK_VIEW + "where b.currentBorrowerId = :borrowerId order by b.id")
+    List<BookView> findViewsByCurrentBorrowerId(@Param("borrowerId") Long borrowerId);
+
+    long countByCurrentBorrowerId(Long borrowerId);
+
+    boolean existsByTitleIsbn(String isbn);
+
+    // Locks the copies of a batch until commit, in id order so that overlapping batches cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id as id, b.title.isbn as isbn, b.currentBorrowerId as currentBorrowerId, " +
+           "b.heldForBorrowerId as heldForBorrowerId from Book b where b.id in :ids order by b.id")
+    List<CopyStatus> lockCopyStatusByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Batch variants of claimCopy/releaseCopy, applied to copies locked by lockCopyStatusByIdIn.
+    // The whole book cache is dropped: a batch touches many keys and is far rarer than single lookups.
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true, beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.currentBorrowerId = :borrowerId, b.heldForBorrowerId = null, b.version = b.version + 1 " +
+           "where b.id in :ids and b.currentBorrowerId is null " +
+           "and (b.heldForBorrowerId is null or b.heldForBorrowerId = :borrowerId)")
+    int claimCopies(@Param("ids") Collection<Long> ids, @Param("borrowerId") Long borrowerId);
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true, beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.currentBorrowerId = null, b.version = b.version + 1 " +
+           "where b.id in :ids and b.currentBorrowerId is not null")
+    int releaseCopies(@Param("ids") Collection<Long> ids);
+
+    // Lightweight per-copy state used to seed the availability index
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id as id, b.title.isbn as isbn, b.currentBorrowerId as currentBorrowerId, " +
+           "b.heldForBorrowerId as heldForBorrowerId from Book b")
+    Stream<CopyStatus> streamCopyStatus();
+
+    @Query("select b.id as id, b.title.isbn as isbn, b.currentBorrowerId as currentBorrowerId, " +
+           "b.heldForBorrowerId as heldForBorrowerId from Book b where b.id in :ids")
+    List<CopyStatus> findCopyStatusByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface CopyStatus {
+        Long getId();
+        String getIsbn();
+        Long getCurrentBorrowerId();
+        Long getHeldForBorrowerId();
+    }
+
+    // Cheap conflict checks used after a failed claim
+    boolean existsByIdAndCurrentBorrowerIdIsNotNull(Long id);
+
+    // True only if the copy is set aside for a different borrower
+    boolean existsByIdAndHeldForBorrowerIdNot(Long id, Long borrowerId);
+
+    // Sets a free copy aside for the borrower of a hold, and releases it again. Return rows updated (0 or 1).
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId")
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.heldForBorrowerId = :borrowerId, b.version = b.version + 1 " +
+           "where b.id = :bookId and b.currentBorrowerId is null and b.heldForBorrowerId is null")
+    int holdCopy(@Param("bookId") Long bookId, @Param("borrowerId") Long borrowerId);
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId")
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.heldForBorrowerId = null, b.version = b.version + 1 " +
+           "where b.id = :bookId and b.heldForBorrowerId = :borrowerId and b.currentBorrowerId is null")
+    int releaseHold(@Param("bookId") Long bookId, @Param("borrowerId") Long borrowerId);
+
+    // Atomically frees a copy that is on loan. Returns rows updated (0 or 1).
+    @Caching(evict = {
+            // Drop the entry now for readers in this transaction, and again after commit
+            // in case a concurrent reader re-cached the old row in between
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId")
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.currentBorrowerId = null, b.version = b.version + 1 " +
+           "where b.id = :bookId and b.currentBorrowerId is not null")
+    int releaseCopy(@Param("bookId") Long bookId);
+}
@@ -1,10 +1,45 @@
 package com.example.library.repository;
 
+import com.example.library.config.CacheConfig;
+import com.example.library.dto.BorrowerView;
 import com.example.library.model.Borrower;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface BorrowerRepository extends JpaRepository<Borrower, Long> {
+    // Only "taken" is cached: a miss must still reach the database, so a new registration can't go stale
+    @Cacheable(cacheNames = CacheConfig.BORROWER_EMAILS, unless = "!#result")
     boolean existsByEmail(String email);
+
+    // Cached as an immutable view, so no caller can change the cached borrower under the others
+    @Cacheable(cacheNames = CacheConfig.BORROWERS, unless = "#result == null")
+    @Query("select new com.example.library.dto.BorrowerView(b.id, b.name, b.email) from Borrower b where b.id = :id")
+    Optional<BorrowerView> findViewById(@Param("id") Long id);
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BORROWERS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.BORROWER_EMAILS, allEntries = true)
+    })
+    void deleteAll();
+
 	Optional<Borrower> findByEmail(String email);
+
+    // Row lock held until commit, so one borrower's concurrent borrows are checked against the loan limit in turn
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id from Borrower b where b.id = :id")
+    Optional<Long> lockById(@Param("id") Long id);
+
+    // Which of these emails are already taken, in one round trip
+    @Query("select b.email from Borrower b where b.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 }
@@ -0,0 +1,44 @@
+package com.example.library.repository;
+
+import com.example.library.model.Hold;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+
+    // Head of an ISBN's queue, served by idx_hold_queue
+    List<Hold> findByIsbnAndStatusOrderByPlacedAtAscIdAsc(String isbn, Hold.Status status, Limit limit);
+
+    boolean existsByBorrowerIdAndIsbnAndStatusIn(Long borrowerId, String isbn, Collection<Hold.Status> statuses);
+
+    List<Hold> findByBorrowerIdOrderByPlacedAtDesc(Long borrowerId);
+
+    List<Hold> findByStatus(Hold.Status status);
+
+    // Queue lengths used to seed HoldQueue at startup
+    @Query("select h.isbn as isbn, count(h) as waiting from Hold h where h.status = :status group by h.isbn")
+    List<QueueLength> countByStatusGroupByIsbn(@Param("status") Hold.Status status);
+
+    interface QueueLength {
+        String getIsbn();
+        Long getWaiting();
+    }
+
+    // Conditional transitions: a hold served, collected or expired concurrently matches no row. Return rows updated (0 or 1).
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Hold h set h.status = :to, h.bookId = :bookId, h.readyUntil = :readyUntil " +
+           "where h.id = :id and h.status = :from")
+    int setAside(@Param("id") Long id, @Param("bookId") Long bookId, @Param("readyUntil") Instant readyUntil,
+                 @Param("from") Hold.Status from, @Param("to") Hold.Status to);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Hold h set h.status = :to where h.id = :id and h.status = :from")
+    int transition(@Param("id") Long id, @Param("from") Hold.Status from, @Param("to") Hold.Status to);
+}
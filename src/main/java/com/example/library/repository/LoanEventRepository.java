@@ -0,0 +1,8 @@
+package com.example.library.repository;
+
+import com.example.library.model.LoanEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+// Append-only: written in batches by LoanEventWriter, never updated
+public interface LoanEventRepository extends JpaRepository<LoanEvent, Long> {
+}
@@ -0,0 +1,19 @@
+package com.example.library.repository;
+
+import com.example.library.model.Loan;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LoanRepository extends JpaRepository<Loan, Long> {
+
+    // Both served by idx_loan_borrower
+    List<Loan> findByBorrowerIdOrderByBorrowedAtDesc(Long borrowerId, Limit limit);
+
+    List<Loan> findByBorrowerIdAndReturnedAtIsNullOrderByBorrowedAtDesc(Long borrowerId);
+
+    // Open loans for the copies returned in one writer batch
+    List<Loan> findByBookIdInAndReturnedAtIsNull(Collection<Long> bookIds);
+}
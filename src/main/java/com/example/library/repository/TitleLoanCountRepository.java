@@ -0,0 +1,20 @@
+package com.example.library.repository;
+
+import com.example.library.model.TitleLoanCount;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TitleLoanCountRepository extends JpaRepository<TitleLoanCount, String> {
+
+    // Returns 0 when the ISBN has no row yet
+    @Modifying
+    @Query("update TitleLoanCount c set c.loans = c.loans + :delta where c.isbn = :isbn")
+    int increment(@Param("isbn") String isbn, @Param("delta") long delta);
+
+    List<TitleLoanCount> findAllByOrderByLoansDesc(Limit limit);
+}
@@ -0,0 +1,30 @@
+package com.example.library.repository;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.model.Title;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface TitleRepository extends JpaRepository<Title, String> {
+    // ISBN metadata never changes once registered, so hot titles are served from memory
+    @Override
+    @Cacheable(cacheNames = CacheConfig.TITLES, unless = "#result == null")
+    Optional<Title> findById(String isbn);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TITLES, allEntries = true)
+    void deleteAll();
+
+    // Every title, used to seed the search index; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select t from Title t")
+    Stream<Title> streamAll();
+}
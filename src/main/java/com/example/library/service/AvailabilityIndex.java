@@ -0,0 +1,88 @@
+package com.example.library.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of free copies per ISBN, used to hand out "any available copy" without
+ * scanning the catalog. It is only a hint: the conditional UPDATE in {@code BookRepository.claimCopy}
+ * still decides whether a copy is really free, and callers fall back to the database on a miss.
+ */
+@Component
+public class AvailabilityIndex {
+
+    // Membership is the truth; a per-ISBN set holds each copy at most once and may briefly keep one
+    // that a racing borrow already removed, which take() discards
+    private final Set<Long> freeCopies = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Long>> freeCopiesByIsbn = new ConcurrentHashMap<>();
+    private final Map<Long, String> isbnByCopy = new ConcurrentHashMap<>();
+
+    /** Records a copy and, if it is not on loan, makes it available. */
+    public void track(Long bookId, String isbn, boolean available) {
+        isbnByCopy.put(bookId, isbn);
+        if (available) {
+            markAvailable(bookId);
+        } else {
+            markBorrowed(bookId);
+        }
+    }
+
+    public void markAvailable(Long bookId) {
+        String isbn = isbnByCopy.get(bookId);
+        if (isbn != null && freeCopies.add(bookId)) {
+            freeCopiesByIsbn.computeIfAbsent(isbn, k -> ConcurrentHashMap.newKeySet()).add(bookId);
+        }
+    }
+
+    public void markBorrowed(Long bookId) {
+        if (freeCopies.remove(bookId)) {
+            String isbn = isbnByCopy.get(bookId);
+            Set<Long> copies = isbn == null ? null : freeCopiesByIsbn.get(isbn);
+            if (copies != null) {
+                copies.remove(bookId);
+            }
+        }
+    }
+
+    /**
+     * Removes and returns a free copy of {@code isbn}, or {@code null} if none is known.
+     * Only one caller can take a given copy; it must call {@link #markAvailable} if the claim fails
+     * for a reason other than the copy being on loan.
+     */
+    public Long take(String isbn) {
+        Set<Long> copies = freeCopiesByIsbn.get(isbn);
+        if (copies == null) {
+            return null;
+        }
+        for (Long bookId : copies) {
+            if (copies.remove(bookId) && freeCopies.remove(bookId)) {
+                return bookId;
+            }
+        }
+        return null;
+    }
+
+    /** The ISBN of a tracked copy, or {@code null} if the copy is unknown. */
+    public String isbnOf(Long bookId) {
+        return isbnByCopy.get(bookId);
+    }
+
+    public void clear() {
+        freeCopies.clear();
+        freeCopiesByIsbn.clear();
+        isbnByCopy.clear();
+    }
+
+    public int availableCount() {
+        return freeCopies.size();
+    }
+
+    // Entries kept for the ISBN, stale ones included
+    int indexedCount(String isbn) {
+        Set<Long> copies = freeCopiesByIsbn.get(isbn);
+        return copies == null ? 0 : copies.size();
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.library.service;
+
+import com.example.library.dto.BatchResult;
+import com.example.library.dto.BatchResult.RowError;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowerRepository;
+import com.example.library.repository.TitleRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk ingestion for nightly imports. Rows are consumed in chunks; each chunk is validated in memory
+ * with one lookup query, then inserted in its own transaction so Hibernate can batch the INSERTs.
+ * Rejected rows are reported individually and never fail the rest of the batch. A chunk the database
+ * refuses (say an ISBN or email registered concurrently since the lookup) is rolled back, all its rows
+ * are reported, and the import continues with the next chunk.
+ */
+@Service
+@Slf4j
+public class BulkImportService {
+
+    private final BookRepository bookRepository;
+    private final BorrowerRepository borrowerRepository;
+    private final TitleRepository titleRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final CatalogSearchIndex searchIndex;
+    private final CirculationStats circulationStats;
+    private final HoldQueue holdQueue;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    public BulkImportService(BookRepository bookRepository, BorrowerRepository borrowerRepository,
+                             TitleRepository titleRepository, AvailabilityIndex availabilityIndex,
+                             CatalogSearchIndex searchIndex, CirculationStats circulationStats,
+                             HoldQueue holdQueue, Validator validator,
+                             TransactionTemplate transactionTemplate, EntityManager entityManager,
+                             @Value("${library.import.chunk-size:1000}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.borrowerRepository = borrowerRepository;
+        this.titleRepository = titleRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.searchIndex = searchIndex;
+        this.circulationStats = circulationStats;
+        this.holdQueue = holdQueue;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchResult importBooks(Iterator<Book> rows) {
+        log.info("Bulk import: books");
+        // ISBN -> its Title, shared by every chunk of this batch
+        Map<String, Title> titlesByIsbn = new HashMap<>();
+        return importInChunks(rows, (chunk, errors) -> {
+            Set<String> unseen = chunk.stream()
+                    .map(r -> r.item().getTitle().getIsbn())
+                    .filter(isbn -> !titlesByIsbn.containsKey(isbn))
+                    .collect(Collectors.toSet());
+            if (!unseen.isEmpty()) {
+                titleRepository.findAllById(unseen).forEach(t -> titlesByIsbn.put(t.getIsbn(), t));
+            }
+
+            List<Title> newTitles = new ArrayList<>();
+            List<Book> accepted = new ArrayList<>();
+            List<Integer> acceptedRows = new ArrayList<>();
+            for (Row<Book> row : chunk) {
+                Title requested = row.item().getTitle();
+                Title title = titlesByIsbn.get(requested.getIsbn());
+                if (title == null) {
+                    title = new Title(requested.getIsbn(), requested.getTitle(), requested.getAuthor());
+                    titlesByIsbn.put(title.getIsbn(), title);
+                    newTitles.add(title);
+                } else if (!title.matches(requested)) {
+                    errors.add(new RowError(row.number(), "ISBN conflict: Metadata mismatch."));
+                    continue;
+                }
+                Book copy = new Book();
+                copy.setTitle(title);
+                accepted.add(copy);
+                acceptedRows.add(row.number());
+            }
+
+            boolean inserted = insert(accepted, acceptedRows, errors, copies -> {
+                titleRepository.saveAll(newTitles);
+                return bookRepository.saveAll(copies);
+            }, saved -> {
+                saved.forEach(b -> {
+                    availabilityIndex.track(b.getId(), b.getTitle().getIsbn(), true);
+                    circulationStats.copyRegistered(b.getTitle().getIsbn());
+                });
+                // New copies go to waiting holds first, as returned ones do
+                saved.forEach(b -> holdQueue.copyAdded(b.getId()));
+                newTitles.forEach(searchIndex::add);
+            });
+            if (!inserted) {
+                // Never committed, so later chunks must look these ISBNs up again
+                newTitles.forEach(t -> titlesByIsbn.remove(t.getIsbn()));
+                return 0;
+            }
+            return accepted.size();
+        });
+    }
+
+    public BatchResult importBorrowers(Iterator<Borrower> rows) {
+        log.info("Bulk import: borrowers");
+        Set<String> emailsInBatch = new HashSet<>();
+        return importInChunks(rows, (chunk, errors) -> {
+            Set<String> taken = new HashSet<>(borrowerRepository.findExistingEmails(
+                    chunk.stream().map(r -> r.item().getEmail()).collect(Collectors.toSet())));
+
+            List<Borrower> accepted = new ArrayList<>();
+            List<Integer> acceptedRows = new ArrayList<>();
+            for (Row<Borrower> row : chunk) {
+                Borrower request = row.item();
+                if (taken.contains(request.getEmail()) || !emailsInBatch.add(request.getEmail())) {
+                    errors.add(new RowError(row.number(), "Email already registered."));
+                    continue;
+                }
+                Borrower borrower = new Borrower();
+                borrower.setName(request.getName());
+                borrower.setEmail(request.getEmail());
+                accepted.add(borrower);
+                acceptedRows.add(row.number());
+            }
+
+            boolean inserted = insert(accepted, acceptedRows, errors, borrowerRepository::saveAll,
+                    saved -> circulationStats.borrowerRegistered(saved.size()));
+            return inserted ? accepted.size() : 0;
+        });
+    }
+
+    private <T> BatchResult importInChunks(Iterator<T> rows, ChunkHandler<T> handler) {
+        List<RowError> errors = new ArrayList<>();
+        List<Row<T>> chunk = new ArrayList<>(chunkSize);
+        int received = 0;
+        int accepted = 0;
+
+        while (true) {
+            T item;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                item = rows.next();
+            } catch (RuntimeException e) {
+                // A malformed row leaves the stream unreadable; report it and keep what was imported
+                errors.add(new RowError(received + 1, "Malformed row: " + e.getMessage()));
+                break;
+            }
+            received++;
+
+            String violation = firstViolation(item);
+            if (violation != null) {
+                errors.add(new RowError(received, violation));
+            } else {
+                chunk.add(new Row<>(received, item));
+            }
+
+            if (chunk.size() == chunkSize) {
+                accepted += handler.handle(chunk, errors);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            accepted += handler.handle(chunk, errors);
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.row(), b.row()));
+        log.info("Bulk import finished. Received: {}, accepted: {}, rejected: {}", received, accepted, errors.size());
+        return new BatchResult(received, accepted, errors);
+    }
+
+    // One transaction per chunk; false, with every row of the chunk reported, if the database refused it
+    private <T> boolean insert(List<T> entities, List<Integer> rows, List<RowError> errors,
+                               Function<List<T>, List<T>> saveAll, Consumer<List<T>> afterCommit) {
+        if (entities.isEmpty()) {
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<T> saved = saveAll.apply(entities);
+                // Push the batched INSERTs now and drop the chunk from the persistence context
+                entityManager.flush();
+                entityManager.clear();
+                AfterCommit.run(() -> afterCommit.accept(saved));
+            });
+        } catch (DataAccessException | PersistenceException e) {
+            // flush() surfaces the raw JPA exception, commit a translated one
+            log.warn("Bulk import chunk of {} rows (from row {}) rolled back: {}", rows.size(), rows.get(0), e.getMessage());
+            rows.forEach(row -> errors.add(new RowError(row, "Rejected by the database; the rows inserted with it were rolled back.")));
+            return false;
+        }
+        return true;
+    }
+
+    private String firstViolation(Object item) {
+        if (item == null) {
+            return "Empty row.";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        ConstraintViolation<Object> v = violations.iterator().next();
+        return v.getPropertyPath() + ": " + v.getMessage();
+    }
+
+    private record Row<T>(int number, T item) {
+    }
+
+    @FunctionalInterface
+    private interface ChunkHandler<T> {
+        // Validates and inserts one chunk, appending rejected rows to errors; returns rows inserted
+        int handle(List<Row<T>> chunk, List<RowError> errors);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.library.service;
+
+import com.example.library.model.Title;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over title and author, one entry per ISBN. Terms are case-folded and
+ * stripped of accents; every query term matches as a prefix, and all terms must match.
+ * Ranking favours exact over prefix matches and title over author hits.
+ */
+@Component
+public class CatalogSearchIndex {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int EXACT_TITLE = 4;
+    private static final int PREFIX_TITLE = 2;
+    private static final int EXACT_AUTHOR = 2;
+    private static final int PREFIX_AUTHOR = 1;
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(h -> h.entry().title().getTitle(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(h -> h.entry().title().getIsbn());
+
+    // term -> ISBNs containing it; sorted so a prefix is a contiguous range
+    private final ConcurrentSkipListMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public record Result(List<Title> titles, int total) {
+    }
+
+    private record Entry(Title title, String[] titleTerms, String[] authorTerms) {
+    }
+
+    private record Hit(Entry entry, int score) {
+    }
+
+    /** Indexes a title; adding an ISBN that is already indexed is a no-op (its metadata never changes). */
+    public void add(Title title) {
+        Title copy = new Title(title.getIsbn(), title.getTitle(), title.getAuthor());
+        Entry entry = new Entry(copy, tokenize(copy.getTitle()), tokenize(copy.getAuthor()));
+        if (entries.putIfAbsent(copy.getIsbn(), entry) != null) {
+            return;
+        }
+        for (String[] terms : List.of(entry.titleTerms(), entry.authorTerms())) {
+            for (String term : terms) {
+                postings.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(copy.getIsbn());
+            }
+        }
+    }
+
+    /** Ranked matches for {@code query}, skipping {@code offset} and returning at most {@code limit}. */
+    public Result search(String query, int offset, int limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0 || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+
+        // Candidates come from the most selective term only; the other terms are checked per entry
+        NavigableMap<String, Set<String>> driver = null;
+        long driverSize = Long.MAX_VALUE;
+        for (String term : terms) {
+            NavigableMap<String, Set<String>> range = prefixRange(term);
+            long size = 0;
+            for (Set<String> isbns : range.values()) {
+                size += isbns.size();
+            }
+            if (size < driverSize) {
+                driver = range;
+                driverSize = size;
+            }
+        }
+        if (driverSize == 0) {
+            return new Result(List.of(), 0);
+        }
+
+        Set<String> candidates = new HashSet<>();
+        driver.values().forEach(candidates::addAll);
+
+        // Keep only the best offset + limit hits: the heap head is the worst one kept
+        int keep = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+        int total = 0;
+        for (String isbn : candidates) {
+            Entry entry = entries.get(isbn);
+            int score = entry == null ? 0 : score(entry, terms);
+            if (score == 0) {
+                continue;
+            }
+            total++;
+            top.offer(new Hit(entry, score));
+            if (top.size() > keep) {
+                top.poll();
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<Title> page = ranked.stream()
+                .skip(offset)
+                .map(h -> h.entry().title())
+                .toList();
+        return new Result(page, total);
+    }
+
+    public void clear() {
+        postings.clear();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String folded = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded))
+                .filter(t -> !t.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private NavigableMap<String, Set<String>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // Sum of the best match per query term, or 0 if any term does not match
+    private static int score(Entry entry, String[] terms) {
+        int score = 0;
+        for (String term : terms) {
+            int best = Math.max(weight(entry.titleTerms(), term, EXACT_TITLE, PREFIX_TITLE),
+                    weight(entry.authorTerms(), term, EXACT_AUTHOR, PREFIX_AUTHOR));
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static int weight(String[] fieldTerms, String term, int exact, int prefix) {
+        int best = 0;
+        for (String candidate : fieldTerms) {
+            if (candidate.equals(term)) {
+                return exact;
+            }
+            if (candidate.startsWith(term)) {
+                best = prefix;
+            }
+        }
+        return best;
+    }
+}
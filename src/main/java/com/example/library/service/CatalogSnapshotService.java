@@ -0,0 +1,410 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.dto.SnapshotResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * Catalog snapshots for backups and for seeding environments: every title, borrower and copy in one
+ * compact binary file. Export streams rows from a JDBC cursor through a direct buffer into a file
+ * channel; import maps the file and inserts with JDBC batches, keeping the original ids and skipping
+ * per-row validation (the rows were valid when exported, and a checksum guards against a damaged file).
+ * <p>
+ * Import only runs against an empty catalog. It commits one batch at a time and skips rows that are
+ * already present; a {@code <name>.snap.importing} marker, removed on success, lets a re-run of an import
+ * that failed part-way continue where it stopped.
+ * <p>
+ * Holds live in their own table and are not part of a snapshot, so copies are exported without the
+ * hold that set them aside and come back available.
+ * <p>
+ * File layout, big-endian: a header ({@link #MAGIC}, title/borrower/copy counts, CRC32C of the body),
+ * then titles {@code (isbn, title, author)}, borrowers {@code (id, name, email)} and copies
+ * {@code (id, title ordinal, flags, [borrower], version)}, each section in key order.
+ * Strings are a length (-1 for null) followed by UTF-8 bytes.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+
+    // "LIBSNAP" and the format version
+    static final long MAGIC = 0x4C4942534E415001L;
+    static final int HEADER_SIZE = 5 * Long.BYTES;
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,99}");
+    private static final String EXTENSION = ".snap";
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int FETCH_SIZE = 5000;
+    // Matches allocationSize of the Book/Borrower sequence generators
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final byte BORROWED = 1;
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TransactionTemplate readSnapshot;
+    private final TransactionTemplate transactionTemplate;
+    private final LibraryService libraryService;
+    private final CirculationStats circulationStats;
+    private final HoldQueue holdQueue;
+    private final CacheManager cacheManager;
+    private final Path directory;
+    private final int batchSize;
+
+    public CatalogSnapshotService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                  LibraryService libraryService, CirculationStats circulationStats,
+                                  HoldQueue holdQueue, CacheManager cacheManager,
+                                  @Value("${library.snapshot.dir:data/snapshots}") String directory,
+                                  @Value("${library.snapshot.batch-size:5000}") int batchSize) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(FETCH_SIZE);
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        // One read-only transaction for all three sections, so copies never point at missing titles
+        this.readSnapshot = new TransactionTemplate(transactionManager);
+        this.readSnapshot.setReadOnly(true);
+        this.readSnapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.libraryService = libraryService;
+        this.circulationStats = circulationStats;
+        this.holdQueue = holdQueue;
+        this.cacheManager = cacheManager;
+        this.directory = Path.of(directory);
+        this.batchSize = batchSize;
+    }
+
+    /** Writes the catalog to {@code <name>.snap}. The file only appears once complete; a failed export leaves none. */
+    public synchronized SnapshotResult export(String name) {
+        Path target = resolve(name);
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        long start = System.nanoTime();
+        log.info("Snapshot export to {}", target);
+        try {
+            Files.createDirectories(directory);
+            long[] counts;
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                SnapshotWriter out = new SnapshotWriter(channel);
+                counts = readSnapshot.execute(status -> writeSections(out));
+                out.finish(counts);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            SnapshotResult result = new SnapshotResult(name, counts[0], counts[1], counts[2], Files.size(target), millisSince(start));
+            log.info("Snapshot export done: {}", result);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Snapshot export failed: " + e.getMessage(), e);
+        } finally {
+            // Only left behind by a failed export
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                log.warn("Could not remove {}: {}", partial, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Loads {@code <name>.snap} with batched inserts, then moves the id sequences past the loaded ids and
+     * rebuilds the in-memory indexes and caches. Refused if the catalog holds any rows, unless they are
+     * left over from an interrupted import of the same snapshot.
+     */
+    public synchronized SnapshotResult importSnapshot(String name) {
+        Path source = resolve(name);
+        if (!Files.isRegularFile(source)) {
+            throw new IllegalArgumentException("Snapshot not found: " + name);
+        }
+        Path marker = source.resolveSibling(source.getFileName() + ".importing");
+        boolean resuming = Files.exists(marker);
+        long start = System.nanoTime();
+        log.info("Snapshot import from {}{}", source, resuming ? " (resuming)" : "");
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot " + name + " is too large to map (" + channel.size() + " bytes).");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long[] expected = readHeader(name, in);
+            if (!resuming) {
+                if (countRows("title") > 0 || countRows("borrower") > 0 || countRows("book") > 0) {
+                    throw new IllegalStateException("Snapshots are only imported into an empty catalog.");
+                }
+                Files.createFile(marker);
+            }
+
+            List<String> isbns = new ArrayList<>((int) expected[0]);
+            long titles = importTitles(in, expected[0], isbns);
+            long borrowers = importBorrowers(in, expected[1]);
+            long books = importBooks(in, expected[2], isbns);
+
+            restartSequence("book_seq", "book");
+            restartSequence("borrower_seq", "borrower");
+            refreshDerivedState();
+            Files.delete(marker);
+            SnapshotResult result = new SnapshotResult(name, titles, borrowers, books, channel.size(), millisSince(start));
+            log.info("Snapshot import done: {}", result);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Snapshot import failed: " + e.getMessage(), e);
+        }
+    }
+
+    private long[] writeSections(SnapshotWriter out) {
+        long[] counts = new long[3];
+        Map<String, Integer> ordinals = new HashMap<>();
+        jdbc.query("select isbn, title, author from title order by isbn", rs -> {
+            String isbn = rs.getString(1);
+            ordinals.put(isbn, ordinals.size());
+            out.putString(isbn);
+            out.putString(rs.getString(2));
+            out.putString(rs.getString(3));
+            counts[0]++;
+        });
+        jdbc.query("select id, name, email from borrower order by id", rs -> {
+            out.putLong(rs.getLong(1));
+            out.putString(rs.getString(2));
+            out.putString(rs.getString(3));
+            counts[1]++;
+        });
+        jdbc.query("select id, isbn, current_borrower_id, version from book order by id", rs -> {
+            long borrower = rs.getLong(3);
+            boolean borrowed = !rs.wasNull();
+            out.putLong(rs.getLong(1));
+            out.putInt(ordinals.get(rs.getString(2)));
+            out.putByte(borrowed ? BORROWED : 0);
+            if (borrowed) {
+                out.putLong(borrower);
+            }
+            out.putLong(rs.getLong(4));
+            counts[2]++;
+        });
+        return counts;
+    }
+
+    private static long[] readHeader(String name, MappedByteBuffer in) {
+        if (in.limit() < HEADER_SIZE || in.getLong(0) != MAGIC) {
+            throw new IllegalStateException("Not a catalog snapshot: " + name);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(in.slice(HEADER_SIZE, in.limit() - HEADER_SIZE));
+        if (crc.getValue() != in.getLong(4 * Long.BYTES)) {
+            throw new IllegalStateException("Snapshot " + name + " is damaged (checksum mismatch).");
+        }
+        in.position(HEADER_SIZE);
+        return new long[]{in.getLong(Long.BYTES), in.getLong(2 * Long.BYTES), in.getLong(3 * Long.BYTES)};
+    }
+
+    private long importTitles(ByteBuffer in, long count, List<String> isbns) {
+        // Titles have natural keys, so a resumed import asks which ones of each batch already exist
+        boolean resuming = countRows("title") > 0;
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long inserted = 0;
+        for (long i = 0; i < count; i++) {
+            String isbn = getString(in);
+            isbns.add(isbn);
+            batch.add(new Object[]{isbn, getString(in), getString(in)});
+            if (batch.size() == batchSize || i == count - 1) {
+                if (resuming) {
+                    Set<String> present = new HashSet<>(namedJdbc.queryForList("select isbn from title where isbn in (:isbns)",
+                            Map.of("isbns", batch.stream().map(row -> row[0]).toList()), String.class));
+                    batch.removeIf(row -> present.contains(row[0]));
+                }
+                inserted += insert("insert into title (isbn, title, author) values (?, ?, ?)", batch);
+            }
+        }
+        return inserted;
+    }
+
+    private long importBorrowers(ByteBuffer in, long count) {
+        // Ids were written in ascending order, so everything up to the highest stored id is already in
+        long loaded = maxId("borrower");
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long inserted = 0;
+        for (long i = 0; i < count; i++) {
+            long id = in.getLong();
+            String name = getString(in);
+            String email = getString(in);
+            if (id > loaded) {
+                batch.add(new Object[]{id, name, email});
+            }
+            if (batch.size() == batchSize || i == count - 1) {
+                inserted += insert("insert into borrower (id, name, email) values (?, ?, ?)", batch);
+            }
+        }
+        return inserted;
+    }
+
+    private long importBooks(ByteBuffer in, long count, List<String> isbns) {
+        long loaded = maxId("book");
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long inserted = 0;
+        for (long i = 0; i < count; i++) {
+            long id = in.getLong();
+            String isbn = isbns.get(in.getInt());
+            byte flags = in.get();
+            Long borrower = (flags & BORROWED) != 0 ? in.getLong() : null;
+            long version = in.getLong();
+            if (id > loaded) {
+                batch.add(new Object[]{id, isbn, borrower, version});
+            }
+            if (batch.size() == batchSize || i == count - 1) {
+                inserted += insert("insert into book (id, isbn, current_borrower_id, version) values (?, ?, ?, ?)", batch);
+            }
+        }
+        return inserted;
+    }
+
+    // One transaction per batch: a failure loses at most the batch in flight
+    private int insert(String sql, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbc.batchUpdate(sql, batch));
+        int inserted = batch.size();
+        batch.clear();
+        return inserted;
+    }
+
+    private void restartSequence(String sequence, String table) {
+        // The pooled optimizer hands out (value - allocationSize, value], so leave a full block of headroom
+        jdbc.execute("alter sequence " + sequence + " restart with " + (maxId(table) + ID_ALLOCATION_SIZE + 1));
+    }
+
+    private void refreshDerivedState() {
+        for (String name : List.of(CacheConfig.BOOKS, CacheConfig.BORROWERS, CacheConfig.BORROWER_EMAILS, CacheConfig.TITLES)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        libraryService.seedAvailabilityIndex();
+        libraryService.seedSearchIndex();
+        circulationStats.reconcile();
+        holdQueue.seed();
+    }
+
+    private long maxId(String table) {
+        Long max = jdbc.queryForObject("select max(id) from " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private long countRows(String table) {
+        Long count = jdbc.queryForObject("select count(*) from " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private Path resolve(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot name: " + name);
+        }
+        return directory.resolve(name + EXTENSION);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /** Buffers records in direct memory and writes them to the channel a megabyte at a time, checksumming as it goes. */
+    private static final class SnapshotWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+
+        SnapshotWriter(FileChannel channel) throws IOException {
+            this.channel = channel;
+            channel.position(HEADER_SIZE);
+        }
+
+        void putByte(byte value) {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        void finish(long[] counts) throws IOException {
+            drain();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putLong(MAGIC).putLong(counts[0]).putLong(counts[1]).putLong(counts[2]).putLong(crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.library.service;
+
+import com.example.library.dto.Availability;
+import com.example.library.dto.CirculationSummary;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Circulation counters for {@code GET /stats} and {@code GET /books/{isbn}/availability}, so neither
+ * reads the book table. Registrations, loans, returns and holds update them once their transaction
+ * commits; the counters are {@link LongAdder}s, so concurrent borrows do not contend on one cell.
+ * <p>
+ * Anything the hooks do not see (rolled-back callbacks, rows written by SQL, a restored snapshot) is
+ * corrected by {@link #reconcile}, which recounts from the database at startup and on a schedule.
+ */
+@Component
+@Slf4j
+public class CirculationStats {
+
+    private final BookRepository bookRepository;
+    private final BorrowerRepository borrowerRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final TransactionTemplate readOnly;
+
+    private final Map<String, Counts> byIsbn = new ConcurrentHashMap<>();
+    private final Counts total = new Counts();
+    private final LongAdder borrowers = new LongAdder();
+    // Copy on loan -> borrower, so a return knows whose loan count to lower
+    private final Map<Long, Long> borrowerByCopy = new ConcurrentHashMap<>();
+    // Borrowers with at least one loan -> their loan count
+    private final Map<Long, Long> loansByBorrower = new ConcurrentHashMap<>();
+    private volatile Instant reconciledAt;
+
+    public CirculationStats(BookRepository bookRepository, BorrowerRepository borrowerRepository,
+                            AvailabilityIndex availabilityIndex, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.borrowerRepository = borrowerRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void borrowerRegistered(int count) {
+        AfterCommit.run(() -> borrowers.add(count));
+    }
+
+    public void copyRegistered(String isbn) {
+        AfterCommit.run(() -> {
+            counts(isbn).copies.increment();
+            total.copies.increment();
+        });
+    }
+
+    /** A free copy was lent; if it was set aside for this borrower, {@link #holdEnded} is reported as well. */
+    public void lent(Long bookId, Long borrowerId) {
+        String isbn = availabilityIndex.isbnOf(bookId);
+        AfterCommit.run(() -> {
+            if (isbn != null) {
+                counts(isbn).onLoan.increment();
+            }
+            total.onLoan.increment();
+            if (borrowerByCopy.put(bookId, borrowerId) == null) {
+                loansByBorrower.merge(borrowerId, 1L, Long::sum);
+            }
+        });
+    }
+
+    public void returned(Long bookId) {
+        String isbn = availabilityIndex.isbnOf(bookId);
+        AfterCommit.run(() -> {
+            if (isbn != null) {
+                counts(isbn).onLoan.decrement();
+            }
+            total.onLoan.decrement();
+            Long borrowerId = borrowerByCopy.remove(bookId);
+            if (borrowerId != null) {
+                loansByBorrower.computeIfPresent(borrowerId, (id, loans) -> loans > 1 ? loans - 1 : null);
+            }
+        });
+    }
+
+    public void setAside(String isbn) {
+        AfterCommit.run(() -> {
+            counts(isbn).onHold.increment();
+            total.onHold.increment();
+        });
+    }
+
+    /** A copy set aside for a hold was collected or released. */
+    public void holdEnded(String isbn) {
+        AfterCommit.run(() -> {
+            counts(isbn).onHold.decrement();
+            total.onHold.decrement();
+        });
+    }
+
+    public CirculationSummary summary() {
+        long copies = total.copies.sum();
+        long onLoan = total.onLoan.sum();
+        long onHold = total.onHold.sum();
+        return new CirculationSummary(byIsbn.size(), copies, Math.max(0, copies - onLoan - onHold), onLoan, onHold,
+                borrowers.sum(), loansByBorrower.size(), reconciledAt);
+    }
+
+    /** Counts for one ISBN, or {@code null} if it has no copies. */
+    public Availability availability(String isbn) {
+        Counts counts = byIsbn.get(isbn);
+        if (counts == null) {
+            return null;
+        }
+        long copies = counts.copies.sum();
+        long onLoan = counts.onLoan.sum();
+        long onHold = counts.onHold.sum();
+        return copies > 0 ? new Availability(isbn, copies, Math.max(0, copies - onLoan - onHold), onLoan, onHold) : null;
+    }
+
+    // Seeds the counters at startup, then checks them for drift
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${library.stats.reconcile-interval-ms:60000}",
+               initialDelayString = "${library.stats.reconcile-interval-ms:60000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Recounts everything from one pass over the copies and corrects the counters. Hooks keep running
+     * meanwhile, so a counter is only corrected if it did not move while the database was read; one
+     * that did is left for the next run. Returns the number of counters corrected.
+     */
+    public synchronized int reconcile() {
+        Map<String, long[]> isbnBefore = snapshot();
+        long[] totalBefore = total.values();
+        long borrowersBefore = borrowers.sum();
+        Map<Long, Long> loansBefore = new HashMap<>(borrowerByCopy);
+        Map<Long, Long> activeBefore = new HashMap<>(loansByBorrower);
+
+        Map<String, long[]> isbnTruth = new HashMap<>();
+        Map<Long, Long> loansTruth = new HashMap<>();
+        long borrowersTruth = readOnly.execute(status -> {
+            try (Stream<BookRepository.CopyStatus> copies = bookRepository.streamCopyStatus()) {
+                copies.forEach(c -> {
+                    long[] counts = isbnTruth.computeIfAbsent(c.getIsbn(), k -> new long[3]);
+                    counts[0]++;
+                    if (c.getCurrentBorrowerId() != null) {
+                        counts[1]++;
+                        loansTruth.put(c.getId(), c.getCurrentBorrowerId());
+                    } else if (c.getHeldForBorrowerId() != null) {
+                        counts[2]++;
+                    }
+                });
+            }
+            return borrowerRepository.count();
+        });
+        Map<Long, Long> activeTruth = new HashMap<>();
+        loansTruth.values().forEach(borrowerId -> activeTruth.merge(borrowerId, 1L, Long::sum));
+        long[] totalTruth = new long[3];
+        isbnTruth.values().forEach(c -> {
+            for (int i = 0; i < 3; i++) {
+                totalTruth[i] += c[i];
+            }
+        });
+
+        int corrected = correct(total, totalBefore, totalTruth)
+                + correct(borrowers, borrowersBefore, borrowersTruth)
+                + correct(borrowerByCopy, loansBefore, loansTruth)
+                + correct(loansByBorrower, activeBefore, activeTruth);
+        Set<String> isbns = new HashSet<>(isbnBefore.keySet());
+        isbns.addAll(isbnTruth.keySet());
+        for (String isbn : isbns) {
+            long[] truth = isbnTruth.getOrDefault(isbn, new long[3]);
+            corrected += correct(counts(isbn), isbnBefore.getOrDefault(isbn, new long[3]), truth);
+            if (truth[0] == 0) {
+                // Title gone from the catalog; a copy registered again recreates the entry
+                byIsbn.computeIfPresent(isbn, (k, c) -> c.copies.sum() == 0 ? null : c);
+            }
+        }
+
+        boolean seeded = reconciledAt == null;
+        reconciledAt = Instant.now();
+        if (seeded) {
+            log.info("Circulation stats seeded: {} titles, {} copies", isbnTruth.size(), totalTruth[0]);
+        } else if (corrected > 0) {
+            log.warn("Circulation stats reconciled: {} counters corrected", corrected);
+        } else {
+            log.debug("Circulation stats reconciled: no drift");
+        }
+        return corrected;
+    }
+
+    private Counts counts(String isbn) {
+        return byIsbn.computeIfAbsent(isbn, k -> new Counts());
+    }
+
+    private Map<String, long[]> snapshot() {
+        Map<String, long[]> values = new HashMap<>();
+        byIsbn.forEach((isbn, counts) -> values.put(isbn, counts.values()));
+        return values;
+    }
+
+    private static int correct(Counts live, long[] before, long[] truth) {
+        return correct(live.copies, before[0], truth[0])
+                + correct(live.onLoan, before[1], truth[1])
+                + correct(live.onHold, before[2], truth[2]);
+    }
+
+    private static int correct(LongAdder live, long before, long truth) {
+        long now = live.sum();
+        if (now != before || now == truth) {
+            return 0;
+        }
+        live.add(truth - now);
+        return 1;
+    }
+
+    // Entry by entry, each correction conditional on the entry still holding the value seen before the read
+    private static <K> int correct(Map<K, Long> live, Map<K, Long> before, Map<K, Long> truth) {
+        Set<K> keys = new HashSet<>(before.keySet());
+        keys.addAll(truth.keySet());
+        int corrected = 0;
+        for (K key : keys) {
+            Long seen = before.get(key);
+            Long expected = truth.get(key);
+            if (Objects.equals(seen, expected)) {
+                continue;
+            }
+            boolean applied;
+            if (expected == null) {
+                applied = live.remove(key, seen);
+            } else if (seen == null) {
+                applied = live.putIfAbsent(key, expected) == null;
+            } else {
+                applied = live.replace(key, seen, expected);
+            }
+            corrected += applied ? 1 : 0;
+        }
+        return corrected;
+    }
+
+    private static final class Counts {
+        final LongAdder copies = new LongAdder();
+        final LongAdder onLoan = new LongAdder();
+        final LongAdder onHold = new LongAdder();
+
+        long[] values() {
+            return new long[]{copies.sum(), onLoan.sum(), onHold.sum()};
+        }
+    }
+}
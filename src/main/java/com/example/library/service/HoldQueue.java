@@ -0,0 +1,250 @@
+package com.example.library.service;
+
+import com.example.library.model.Hold;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.HoldRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-ISBN FIFO hold queues. Holds live in the {@code book_hold} table; this component keeps what the
+ * hot paths need in memory: the number of waiting holds per ISBN, so a return only queries the queue
+ * when someone is waiting, and a delay queue of pickup deadlines, so expiry never scans the table.
+ * <p>
+ * A freed copy is set aside for the oldest waiting hold with the same kind of conditional UPDATE that
+ * lends copies ({@code BookRepository.holdCopy}); {@code claimCopy} then only lets that borrower take it.
+ */
+@Component
+@Slf4j
+public class HoldQueue {
+
+    private static final Set<Hold.Status> ACTIVE = EnumSet.of(Hold.Status.WAITING, Hold.Status.READY);
+    // Waiting holds read per queue lookup; more are read if all of these were served concurrently
+    private static final int HAND_OFF_BATCH = 8;
+
+    private final HoldRepository holdRepository;
+    private final BookRepository bookRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final CirculationStats circulationStats;
+    private final TransactionTemplate transactionTemplate;
+    // For hand-offs run after the caller's transaction committed, which can no longer be joined
+    private final TransactionTemplate newTransaction;
+    private final Duration pickupWindow;
+
+    // Waiting holds per ISBN; only a hint, the table decides who is next
+    private final Map<String, Integer> waiting = new ConcurrentHashMap<>();
+    private final DelayQueue<Pickup> pickups = new DelayQueue<>();
+    // READY holds by the copy set aside for them
+    private final Map<Long, Pickup> readyByCopy = new ConcurrentHashMap<>();
+    // The same holds by who collects them, so a holder borrowing by ISBN finds their copy
+    private final Map<Holder, Pickup> readyByHolder = new ConcurrentHashMap<>();
+
+    public HoldQueue(HoldRepository holdRepository, BookRepository bookRepository,
+                     AvailabilityIndex availabilityIndex, CirculationStats circulationStats,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${library.holds.pickup-window:48h}") Duration pickupWindow) {
+        this.holdRepository = holdRepository;
+        this.bookRepository = bookRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.circulationStats = circulationStats;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pickupWindow = pickupWindow;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seed() {
+        waiting.clear();
+        pickups.clear();
+        readyByCopy.clear();
+        readyByHolder.clear();
+        holdRepository.countByStatusGroupByIsbn(Hold.Status.WAITING)
+                .forEach(q -> waiting.put(q.getIsbn(), q.getWaiting().intValue()));
+        // Deadlines that passed while the application was down are swept on the first run
+        holdRepository.findByStatus(Hold.Status.READY).forEach(h ->
+                schedule(new Pickup(h.getId(), h.getBookId(), h.getIsbn(), h.getBorrowerId(), h.getReadyUntil())));
+        log.info("Hold queues seeded with {} waiting and {} ready holds", waitingCount(), readyCount());
+    }
+
+    /**
+     * Appends a hold to the ISBN's queue and, if a copy is free, sets it aside at once; the returned
+     * hold may therefore already be READY. The caller checks that borrower and ISBN exist.
+     */
+    public Outcome<Hold> place(Long borrowerId, String isbn) {
+        Hold placed = transactionTemplate.execute(status ->
+                holdRepository.existsByBorrowerIdAndIsbnAndStatusIn(borrowerId, isbn, ACTIVE)
+                        ? null
+                        : holdRepository.save(new Hold(isbn, borrowerId, Instant.now())));
+        if (placed == null) {
+            return Outcome.failed(Problem.HOLD_EXISTS);
+        }
+        // Committed and counted before looking for a copy: a concurrent return either sees the count,
+        // or put its copy in the availability index before the hand-off below looks there
+        waiting.merge(isbn, 1, Integer::sum);
+        transactionTemplate.executeWithoutResult(status -> handOff(isbn));
+        return Outcome.ok(holdRepository.findById(placed.getId()).orElse(placed));
+    }
+
+    /** Called by returns once the copy is back in the availability index; joins the caller's transaction. */
+    public void copyFreed(Long bookId) {
+        String isbn = availabilityIndex.isbnOf(bookId);
+        if (isbn != null && waiting.containsKey(isbn)) {
+            transactionTemplate.executeWithoutResult(status -> handOff(isbn));
+        }
+    }
+
+    /**
+     * Called by registrations once the new copy has committed and is in the availability index, so waiting
+     * holds come before walk-ins as for a returned copy. Runs in its own transaction.
+     */
+    public void copyAdded(Long bookId) {
+        String isbn = availabilityIndex.isbnOf(bookId);
+        if (isbn != null && waiting.containsKey(isbn)) {
+            newTransaction.executeWithoutResult(status -> handOff(isbn));
+        }
+    }
+
+    /** Called by borrows, in their transaction, for every copy claimed; completes the hold it was set aside for. */
+    public void copyClaimed(Long bookId, Long borrowerId) {
+        Pickup pickup = readyByCopy.get(bookId);
+        if (pickup != null && pickup.borrowerId().equals(borrowerId) && readyByCopy.remove(bookId, pickup)) {
+            readyByHolder.remove(pickup.holder(), pickup);
+            holdRepository.transition(pickup.holdId(), Hold.Status.READY, Hold.Status.FULFILLED);
+            circulationStats.holdEnded(pickup.isbn());
+        }
+    }
+
+    /** The copy set aside for the borrower's READY hold on {@code isbn}, or {@code null} if there is none. */
+    public Long readyCopy(Long borrowerId, String isbn) {
+        Pickup pickup = readyByHolder.get(new Holder(borrowerId, isbn));
+        return pickup != null ? pickup.bookId() : null;
+    }
+
+    public List<Hold> holdsOf(Long borrowerId) {
+        return holdRepository.findByBorrowerIdOrderByPlacedAtDesc(borrowerId);
+    }
+
+    /** Expires holds whose pickup window has passed and passes their copies on. Only due deadlines are touched. */
+    @Scheduled(fixedDelayString = "${library.holds.sweep-interval-ms:1000}")
+    public void expireUncollected() {
+        Pickup due;
+        while ((due = pickups.poll()) != null) {
+            Pickup pickup = due;
+            try {
+                transactionTemplate.executeWithoutResult(status -> expire(pickup));
+            } catch (RuntimeException e) {
+                log.error("Could not expire hold {}: {}", pickup.holdId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    public int waitingCount() {
+        return waiting.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public int readyCount() {
+        return readyByCopy.size();
+    }
+
+    private void expire(Pickup pickup) {
+        // Collected holds leave their deadline in the queue; the conditional update skips them
+        if (holdRepository.transition(pickup.holdId(), Hold.Status.READY, Hold.Status.EXPIRED) == 0) {
+            return;
+        }
+        readyByCopy.remove(pickup.bookId(), pickup);
+        readyByHolder.remove(pickup.holder(), pickup);
+        log.info("Hold {} of Borrower {} expired uncollected", pickup.holdId(), pickup.borrowerId());
+        if (bookRepository.releaseHold(pickup.bookId(), pickup.borrowerId()) == 1) {
+            circulationStats.holdEnded(pickup.isbn());
+            availabilityIndex.markAvailable(pickup.bookId());
+            copyFreed(pickup.bookId());
+        }
+    }
+
+    // Pairs free copies of the ISBN with its oldest waiting holds until either runs out
+    private void handOff(String isbn) {
+        while (waiting.containsKey(isbn)) {
+            List<Hold> next = holdRepository.findByIsbnAndStatusOrderByPlacedAtAscIdAsc(
+                    isbn, Hold.Status.WAITING, Limit.of(HAND_OFF_BATCH));
+            if (next.isEmpty()) {
+                // The count ran ahead of the table, e.g. a hold served before its placement was counted
+                waiting.remove(isbn);
+                return;
+            }
+            Long bookId = availabilityIndex.take(isbn);
+            if (bookId == null) {
+                return;
+            }
+            setAside(bookId, next);
+        }
+    }
+
+    private void setAside(Long bookId, List<Hold> next) {
+        for (Hold hold : next) {
+            if (bookRepository.holdCopy(bookId, hold.getBorrowerId()) == 0) {
+                // Stale index entry: the copy was lent or set aside in the meantime
+                return;
+            }
+            Instant readyUntil = Instant.now().plus(pickupWindow);
+            if (holdRepository.setAside(hold.getId(), bookId, readyUntil, Hold.Status.WAITING, Hold.Status.READY) == 1) {
+                waiting.computeIfPresent(hold.getIsbn(), (isbn, count) -> count > 1 ? count - 1 : null);
+                circulationStats.setAside(hold.getIsbn());
+                schedule(new Pickup(hold.getId(), bookId, hold.getIsbn(), hold.getBorrowerId(), readyUntil));
+                log.info("Book {} set aside for Borrower {} until {}", bookId, hold.getBorrowerId(), readyUntil);
+                return;
+            }
+            // Served by a concurrent hand-off: free the copy for the next hold in line
+            bookRepository.releaseHold(bookId, hold.getBorrowerId());
+        }
+        availabilityIndex.markAvailable(bookId);
+    }
+
+    // Registered before commit: if the transaction rolls back, the conditional updates make the entry a no-op
+    private void schedule(Pickup pickup) {
+        readyByCopy.put(pickup.bookId(), pickup);
+        readyByHolder.put(pickup.holder(), pickup);
+        pickups.offer(pickup);
+    }
+
+    private record Holder(Long borrowerId, String isbn) {
+    }
+
+    private record Pickup(Long holdId, Long bookId, String isbn, Long borrowerId, Instant readyUntil) implements Delayed {
+
+        Holder holder() {
+            return new Holder(borrowerId, isbn);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), readyUntil));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return readyUntil.compareTo(((Pickup) other).readyUntil);
+        }
+    }
+}
@@ -1,35 +1,126 @@
 package com.example.library.service;
 
+import com.example.library.dto.Availability;
+import com.example.library.dto.BookPage;
+import com.example.library.dto.BookView;
+import com.example.library.dto.BorrowerView;
+import com.example.library.dto.CirculationSummary;
+import com.example.library.dto.LoanBatchResult;
+import com.example.library.dto.SearchPage;
+import com.example.library.logging.LogMarkers;
 import com.example.library.model.Book;
 import com.example.library.model.Borrower;
+import com.example.library.model.Hold;
+import com.example.library.model.Loan;
+import com.example.library.model.Title;
+import com.example.library.model.TitleLoanCount;
+import com.example.library.replica.ReplicaRoutingDataSource;
 import com.example.library.repository.BookRepository;
 import com.example.library.repository.BorrowerRepository;
+import com.example.library.repository.LoanRepository;
+import com.example.library.repository.TitleLoanCountRepository;
+import com.example.library.repository.TitleRepository;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j; // <--- This enables Logging
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j // <--- Automatically creates a 'log' object for this class
 public class LibraryService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // Stale index entries tried before falling back to a database lookup
+    private static final int MAX_INDEX_ATTEMPTS = 8;
+
+
     private final BookRepository bookRepository;
     private final BorrowerRepository borrowerRepository;
+    private final TitleRepository titleRepository;
+    private final EntityManager entityManager;
+    private final AvailabilityIndex availabilityIndex;
+    private final CatalogSearchIndex searchIndex;
+    private final LoanEventWriter loanEvents;
+    private final LoanRepository loanRepository;
+    private final TitleLoanCountRepository titleLoanCountRepository;
+    private final HoldQueue holdQueue;
+    private final CirculationStats circulationStats;
+    private final TransactionTemplate transactionTemplate;
+    // Concurrent loans per borrower; Long.MAX_VALUE when the limit is disabled
+    private final long maxLoansPerBorrower;
 
-    public LibraryService(BookRepository bookRepository, BorrowerRepository borrowerRepository) {
+    public LibraryService(BookRepository bookRepository, BorrowerRepository borrowerRepository,
+                          TitleRepository titleRepository, EntityManager entityManager,
+                          AvailabilityIndex availabilityIndex, CatalogSearchIndex searchIndex,
+                          LoanEventWriter loanEvents, LoanRepository loanRepository,
+                          TitleLoanCountRepository titleLoanCountRepository, HoldQueue holdQueue,
+                          CirculationStats circulationStats, PlatformTransactionManager transactionManager,
+                          @Value("${library.loans.max-per-borrower:10}") int maxLoansPerBorrower) {
         this.bookRepository = bookRepository;
         this.borrowerRepository = borrowerRepository;
+        this.titleRepository = titleRepository;
+        this.entityManager = entityManager;
+        this.availabilityIndex = availabilityIndex;
+        this.searchIndex = searchIndex;
+        this.loanEvents = loanEvents;
+        this.loanRepository = loanRepository;
+        this.titleLoanCountRepository = titleLoanCountRepository;
+        this.holdQueue = holdQueue;
+        this.circulationStats = circulationStats;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxLoansPerBorrower = maxLoansPerBorrower > 0 ? maxLoansPerBorrower : Long.MAX_VALUE;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seedAvailabilityIndex() {
+        availabilityIndex.clear();
+        try (Stream<BookRepository.CopyStatus> copies = bookRepository.streamCopyStatus()) {
+            // Copies set aside for a hold are not available to anyone else
+            copies.forEach(c -> availabilityIndex.track(c.getId(), c.getIsbn(),
+                    c.getCurrentBorrowerId() == null && c.getHeldForBorrowerId() == null));
+        }
+        log.info("Availability index seeded with {} free copies", availabilityIndex.availableCount());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seedSearchIndex() {
+        searchIndex.clear();
+        try (Stream<Title> titles = titleRepository.streamAll()) {
+            titles.forEach(t -> {
+                searchIndex.add(t);
+                entityManager.detach(t);
+            });
+        }
+        log.info("Search index seeded with {} titles", searchIndex.size());
     }
 
     @Transactional
-    public Borrower registerBorrower(Borrower request) {
+    public Outcome<Borrower> registerBorrower(Borrower request) {
         log.info("Attempting to register borrower: {}", request.getEmail());
 		
 		   // 1. Application-level check (Friendly error)
            if (borrowerRepository.existsByEmail(request.getEmail())) {
-                log.warn("Registration rejected. Email '{}' already exists.", request.getEmail());
-                throw new IllegalStateException("Email already registered.");
+                log.info("Registration rejected. Email '{}' already exists.", request.getEmail());
+                return Outcome.failed(Problem.EMAIL_TAKEN);
             }
 
         try {
@@ -37,8 +128,9 @@ public class LibraryService {
 
             // 2. Database interaction
             Borrower saved = borrowerRepository.save(request);
+            circulationStats.borrowerRegistered(1);
             log.info("Borrower registered successfully. ID: {}", saved.getId());
-            return saved;
+            return Outcome.ok(saved);
 
         } catch (IllegalArgumentException e) {
             // Pass through our specific business validation errors
@@ -51,29 +143,46 @@ public class LibraryService {
         }
     }
 
-    @Transactional
-   public Book registerBook(Book request) {
-        log.info("Registering book ISBN: {}", request.getIsbn());
-		   // 1. Check existing copies for consistency
-            List<Book> existingCopies = bookRepository.findByIsbn(request.getIsbn());
+    /**
+     * First registrations of an ISBN race on the title's primary key. The loser's transaction rolls back
+     * and runs once more, now finding the winner's title and adding its copy to it (or rejecting the copy
+     * if the metadata differs), as if the two registrations had come one after the other.
+     */
+    public Outcome<Book> registerBook(Book request) {
+        log.info("Registering book ISBN: {}", request.getTitle().getIsbn());
+        try {
+            return transactionTemplate.execute(status -> addCopy(request));
+        } catch (DataIntegrityViolationException e) {
+            log.info("ISBN {} was registered concurrently; adding the copy to its title", request.getTitle().getIsbn());
+            return transactionTemplate.execute(status -> addCopy(request));
+        }
+    }
 
-            if (!existingCopies.isEmpty()) {
-                Book originalMetadata = existingCopies.get(0);
+   private Outcome<Book> addCopy(Book request) {
+        Title requested = request.getTitle();
+		   // 1. Check the ISBN's metadata for consistency (single primary-key lookup)
+            Optional<Title> existing = titleRepository.findById(requested.getIsbn());
+            Title title;
 
-                // Rule: "2 books with the same ISBN numbers must have the same title and same author"
-                boolean titleMatch = originalMetadata.getTitle().equalsIgnoreCase(request.getTitle());
-                boolean authorMatch = originalMetadata.getAuthor().equalsIgnoreCase(request.getAuthor());
+            if (existing.isPresent()) {
+                title = existing.get();
 
-                if (!titleMatch || !authorMatch) {
-                    log.warn("ISBN Conflict! Input: '{}' by '{}'. Existing: '{}' by '{}'", 
-                              request.getTitle(), request.getAuthor(), 
-                              originalMetadata.getTitle(), originalMetadata.getAuthor());
+                // Rule: "2 books with the same ISBN numbers must have the same title and same author"
+                if (!title.matches(requested)) {
+                    log.info("ISBN Conflict! Input: '{}' by '{}'. Existing: '{}' by '{}'", 
+                              requested.getTitle(), requested.getAuthor(), 
+                              title.getTitle(), title.getAuthor());
                     
-                    throw new IllegalStateException("ISBN conflict: Metadata mismatch.");
+                    return Outcome.failed(Problem.ISBN_METADATA_MISMATCH);
                 }
                 log.info("ISBN matches existing records. Adding a new physical copy.");
             } else {
                 log.info("New ISBN detected. Creating first copy.");
+                // Flushed so a concurrent first registration of the ISBN fails on the primary key here
+                title = titleRepository.saveAndFlush(new Title(requested.getIsbn(), requested.getTitle(), requested.getAuthor()));
+                // Searchable once committed; a rolled back registration leaves no phantom title
+                Title added = title;
+                AfterCommit.run(() -> searchIndex.add(added));
             }
 
         try {
@@ -81,13 +190,19 @@ public class LibraryService {
 
             // 2. Create and Save the new physical copy
             Book newCopy = new Book();
-            newCopy.setIsbn(request.getIsbn());
-            newCopy.setTitle(request.getTitle());
-            newCopy.setAuthor(request.getAuthor());
+            newCopy.setTitle(title);
             
             Book savedBook = bookRepository.save(newCopy);
+            circulationStats.copyRegistered(title.getIsbn());
+            // Lendable once committed; waiting holds come before walk-ins, as for a returned copy
+            Long id = savedBook.getId();
+            String isbn = title.getIsbn();
+            AfterCommit.run(() -> {
+                availabilityIndex.track(id, isbn, true);
+                holdQueue.copyAdded(id);
+            });
             log.info("Book saved successfully. New ID: {}", savedBook.getId());
-            return savedBook;
+            return Outcome.ok(savedBook);
 
         } catch (IllegalArgumentException e) {
             // SPECIFIC CATCH: Business rule failed. Re-throw so Controller sends 400 Bad Request.
@@ -95,60 +210,403 @@ public class LibraryService {
 
         } catch (Exception e) {
             // GENERAL CATCH: Database or System failure. Log it and throw generic error.
-            log.error("Unexpected error while registering book ISBN {}: {}", request.getIsbn(), e.getMessage(), e);
+            log.error("Unexpected error while registering book ISBN {}: {}", requested.getIsbn(), e.getMessage(), e);
             throw new RuntimeException("System error: Unable to register book. Please try again later.");
         }
     }
 
     @Transactional
-    public void borrowBook(Long borrowerId, Long bookId) {
-        log.info("Request: Borrower {} borrowing Book {}", borrowerId, bookId);
+    public Outcome<Void> borrowBook(Long borrowerId, Long bookId) {
+        log.info(LogMarkers.BORROW, "Request: Borrower {} borrowing Book {}", borrowerId, bookId);
 
-        try {
-            Book book = bookRepository.findById(bookId)
-                    .orElseThrow(() -> new IllegalArgumentException("Book not found"));
-            
-            Borrower borrower = borrowerRepository.findById(borrowerId)
-                    .orElseThrow(() -> new IllegalArgumentException("Borrower not found"));
+        Problem problem = lockBorrower(borrowerId) ? claim(borrowerId, bookId) : Problem.BORROWER_NOT_FOUND;
+        if (problem != null) {
+            // Routine during rush hours: no stack trace, and sampled like the success line
+            log.info(LogMarkers.BORROW, "Response: Borrow of Book {} rejected: {}", bookId, problem.message());
+            return Outcome.failed(problem);
+        }
+        log.info(LogMarkers.BORROW, "Response: Successfully borrowed Book {}", bookId);
+        return Outcome.ok();
+    }
+
+    /**
+     * Lends any free copy of {@code isbn}. Candidates come from the availability index in O(1);
+     * each is still claimed with the conditional UPDATE, and a database lookup covers index misses.
+     */
+    @Transactional
+    public Outcome<Book> borrowByIsbn(Long borrowerId, String isbn) {
+        log.info(LogMarkers.BORROW, "Request: Borrower {} borrowing any copy of ISBN {}", borrowerId, isbn);
+        if (!lockBorrower(borrowerId)) {
+            return Outcome.failed(Problem.BORROWER_NOT_FOUND);
+        }
+
+        // A copy set aside for this borrower's hold is out of the index and skipped by the lookup below
+        Long reserved = holdQueue.readyCopy(borrowerId, isbn);
+        if (reserved != null) {
+            Problem problem = claim(borrowerId, reserved);
+            if (problem == null) {
+                return Outcome.ok(lentCopy(reserved));
+            }
+            if (!isStale(problem)) {
+                return Outcome.failed(problem);
+            }
+        }
+
+        for (int attempt = 0; attempt < MAX_INDEX_ATTEMPTS; attempt++) {
+            Long candidate = availabilityIndex.take(isbn);
+            if (candidate == null) {
+                break;
+            }
+            Problem problem = claim(borrowerId, candidate);
+            if (problem == null) {
+                return Outcome.ok(lentCopy(candidate));
+            }
+            if (!isStale(problem)) {
+                // The copy is free; the claim failed on the borrower, so keep the copy available
+                availabilityIndex.markAvailable(candidate);
+                return Outcome.failed(problem);
+            }
+        }
 
-            if (book.getCurrentBorrowerId() != null) {
-                throw new IllegalStateException("Book is already borrowed.");
+        // Index exhausted or stale: ask the database for a free copy
+        Optional<Book> free = bookRepository.findFirstByTitleIsbnAndCurrentBorrowerIdIsNullAndHeldForBorrowerIdIsNull(isbn);
+        if (free.isPresent()) {
+            Problem problem = claim(borrowerId, free.get().getId());
+            if (problem == null) {
+                return Outcome.ok(lentCopy(free.get().getId()));
             }
+            if (!isStale(problem)) {
+                return Outcome.failed(problem);
+            }
+        }
+        if (!bookRepository.existsByTitleIsbn(isbn)) {
+            return Outcome.failed(Problem.ISBN_NOT_FOUND);
+        }
+        return Outcome.failed(Problem.NO_COPY_AVAILABLE);
+    }
 
-            book.setCurrentBorrowerId(borrower.getId());
-            bookRepository.save(book);
+    /**
+     * Claims one copy with a single conditional UPDATE; the database decides who wins. Returns
+     * {@code null} on success, otherwise why nothing was updated (most likely cause checked first).
+     */
+    private Problem claim(Long borrowerId, Long bookId) {
+        if (bookRepository.claimCopy(bookId, borrowerId, maxLoansPerBorrower) == 1) {
+            availabilityIndex.markBorrowed(bookId);
+            loanEvents.borrowed(bookId, borrowerId);
+            circulationStats.lent(bookId, borrowerId);
+            holdQueue.copyClaimed(bookId, borrowerId);
+            return null;
+        }
+        if (bookRepository.existsByIdAndCurrentBorrowerIdIsNotNull(bookId)) {
+            return Problem.ALREADY_BORROWED;
+        }
+        if (!bookRepository.existsById(bookId)) {
+            return Problem.BOOK_NOT_FOUND;
+        }
+        if (!borrowerRepository.existsById(borrowerId)) {
+            return Problem.BORROWER_NOT_FOUND;
+        }
+        if (bookRepository.existsByIdAndHeldForBorrowerIdNot(bookId, borrowerId)) {
+            return Problem.ON_HOLD;
+        }
+        if (bookRepository.countByCurrentBorrowerId(borrowerId) >= maxLoansPerBorrower) {
+            return Problem.LOAN_LIMIT_REACHED;
+        }
+        // Freed again between the claim and the checks above
+        return Problem.ALREADY_BORROWED;
+    }
 
-            log.info("Response: Successfully borrowed Book {}", bookId);
+    // A copy picked for borrowByIsbn that was lent, set aside or deleted in the meantime
+    private static boolean isStale(Problem problem) {
+        return problem == Problem.ALREADY_BORROWED || problem == Problem.ON_HOLD || problem == Problem.BOOK_NOT_FOUND;
+    }
 
-        } catch (Exception ex) {
-            log.error("Exception: Borrow transaction failed for Book {}. Error: {}", bookId, ex.getMessage());
-            throw ex;
+    /**
+     * Serializes this borrower's borrows until commit, so two concurrent claims cannot both pass the
+     * loan-limit count in {@code claimCopy}. Skipped when the limit is disabled (the claim then checks
+     * the borrower exists). Returns false for an unknown borrower.
+     */
+    private boolean lockBorrower(Long borrowerId) {
+        return maxLoansPerBorrower == Long.MAX_VALUE || borrowerRepository.lockById(borrowerId).isPresent();
+    }
+
+    private Book lentCopy(Long bookId) {
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        log.info(LogMarkers.BORROW, "Response: Successfully borrowed Book {} (ISBN {})", bookId, book.getTitle().getIsbn());
+        return book;
+    }
+
+    /**
+     * Lends a stack of copies in one transaction: the copies are locked and read in one query and
+     * claimed with one UPDATE. Unavailable copies are reported per copy instead of failing the batch.
+     */
+    @Transactional
+    public Outcome<LoanBatchResult> borrowBooks(Long borrowerId, List<Long> bookIds) {
+        log.info(LogMarkers.BORROW, "Request: Borrower {} borrowing {} books", borrowerId, bookIds.size());
+        if (!lockBorrower(borrowerId)
+                || (maxLoansPerBorrower == Long.MAX_VALUE && !borrowerRepository.existsById(borrowerId))) {
+            return Outcome.failed(Problem.BORROWER_NOT_FOUND);
+        }
+
+        List<Long> requested = bookIds.stream().distinct().toList();
+        Map<Long, BookRepository.CopyStatus> copies = lockCopies(requested);
+        long allowance = maxLoansPerBorrower == Long.MAX_VALUE
+                ? Long.MAX_VALUE
+                : maxLoansPerBorrower - bookRepository.countByCurrentBorrowerId(borrowerId);
+
+        List<LoanBatchResult.Item> items = new ArrayList<>(requested.size());
+        List<Long> claims = new ArrayList<>();
+        for (Long bookId : requested) {
+            BookRepository.CopyStatus copy = copies.get(bookId);
+            LoanBatchResult.Status status;
+            if (copy == null) {
+                status = LoanBatchResult.Status.NOT_FOUND;
+            } else if (copy.getCurrentBorrowerId() != null) {
+                status = LoanBatchResult.Status.ALREADY_BORROWED;
+            } else if (copy.getHeldForBorrowerId() != null && !copy.getHeldForBorrowerId().equals(borrowerId)) {
+                status = LoanBatchResult.Status.ON_HOLD;
+            } else if (claims.size() >= allowance) {
+                status = LoanBatchResult.Status.LIMIT_REACHED;
+            } else {
+                claims.add(bookId);
+                status = LoanBatchResult.Status.BORROWED;
+            }
+            items.add(new LoanBatchResult.Item(bookId, status));
+        }
+
+        // The copies are locked, so every claim matches
+        if (!claims.isEmpty()) {
+            bookRepository.claimCopies(claims, borrowerId);
         }
+        for (Long bookId : claims) {
+            availabilityIndex.markBorrowed(bookId);
+            loanEvents.borrowed(bookId, borrowerId);
+            circulationStats.lent(bookId, borrowerId);
+            holdQueue.copyClaimed(bookId, borrowerId);
+        }
+        log.info(LogMarkers.BORROW, "Response: Borrowed {} of {} books", claims.size(), requested.size());
+        return Outcome.ok(new LoanBatchResult(claims.size(), 0, items));
     }
 
     @Transactional
-    public void returnBook(Long bookId) {
-        log.info("Request: Returning Book {}", bookId);
+    public Outcome<Void> returnBook(Long bookId) {
+        log.info(LogMarkers.RETURN, "Request: Returning Book {}", bookId);
 
-        try {
-            Book book = bookRepository.findById(bookId)
-                    .orElseThrow(() -> new IllegalArgumentException("Book not found"));
-            
-            book.setCurrentBorrowerId(null);
-            bookRepository.save(book);
+        // Returning a copy that is not on loan is a no-op, as before
+        if (bookRepository.releaseCopy(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                log.info(LogMarkers.RETURN, "Response: Return of Book {} rejected: {}", bookId, Problem.BOOK_NOT_FOUND.message());
+                return Outcome.failed(Problem.BOOK_NOT_FOUND);
+            }
+        } else {
+            availabilityIndex.markAvailable(bookId);
+            loanEvents.returned(bookId);
+            circulationStats.returned(bookId);
+            holdQueue.copyFreed(bookId);
+        }
+
+        log.info(LogMarkers.RETURN, "Response: Successfully returned Book {}", bookId);
+        return Outcome.ok();
+    }
+
+    /** Batch counterpart of {@link #returnBook}: copies that are not on loan are reported, not failed. */
+    @Transactional
+    public LoanBatchResult returnBooks(List<Long> bookIds) {
+        log.info(LogMarkers.RETURN, "Request: Returning {} books", bookIds.size());
+
+        List<Long> requested = bookIds.stream().distinct().toList();
+        Map<Long, BookRepository.CopyStatus> copies = lockCopies(requested);
+
+        List<LoanBatchResult.Item> items = new ArrayList<>(requested.size());
+        List<Long> releases = new ArrayList<>();
+        for (Long bookId : requested) {
+            BookRepository.CopyStatus copy = copies.get(bookId);
+            LoanBatchResult.Status status;
+            if (copy == null) {
+                status = LoanBatchResult.Status.NOT_FOUND;
+            } else if (copy.getCurrentBorrowerId() == null) {
+                status = LoanBatchResult.Status.NOT_BORROWED;
+            } else {
+                releases.add(bookId);
+                status = LoanBatchResult.Status.RETURNED;
+            }
+            items.add(new LoanBatchResult.Item(bookId, status));
+        }
+
+        if (!releases.isEmpty()) {
+            bookRepository.releaseCopies(releases);
+        }
+        for (Long bookId : releases) {
+            availabilityIndex.markAvailable(bookId);
+            loanEvents.returned(bookId);
+            circulationStats.returned(bookId);
+            holdQueue.copyFreed(bookId);
+        }
+        log.info(LogMarkers.RETURN, "Response: Returned {} of {} books", releases.size(), requested.size());
+        return new LoanBatchResult(0, releases.size(), items);
+    }
+
+    private Map<Long, BookRepository.CopyStatus> lockCopies(List<Long> bookIds) {
+        Map<Long, BookRepository.CopyStatus> copies = new HashMap<>();
+        bookRepository.lockCopyStatusByIdIn(bookIds).forEach(c -> copies.put(c.getId(), c));
+        return copies;
+    }
+
+    /** Returns every copy the borrower holds; one release per loan, so O(loans). Returns the copies released. */
+    @Transactional
+    public Outcome<List<Long>> returnAllBooks(Long borrowerId) {
+        log.info(LogMarkers.RETURN, "Request: Returning all books of Borrower {}", borrowerId);
+        if (!borrowerRepository.existsById(borrowerId)) {
+            return Outcome.failed(Problem.BORROWER_NOT_FOUND);
+        }
+
+        List<Long> returned = new ArrayList<>();
+        for (Book book : bookRepository.findByCurrentBorrowerIdOrderByIdAsc(borrowerId)) {
+            // A concurrent single return may have released it already
+            if (bookRepository.releaseCopy(book.getId()) == 1) {
+                availabilityIndex.markAvailable(book.getId());
+                loanEvents.returned(book.getId());
+                circulationStats.returned(book.getId());
+                holdQueue.copyFreed(book.getId());
+                returned.add(book.getId());
+            }
+        }
+        log.info(LogMarkers.RETURN, "Response: Returned {} books of Borrower {}", returned.size(), borrowerId);
+        return Outcome.ok(returned);
+    }
+
+    /**
+     * Queues the borrower for the next free copy of {@code isbn} instead of having them retry borrows.
+     * A copy that is free already is set aside at once, so the hold may come back READY.
+     */
+    public Outcome<Hold> placeHold(Long borrowerId, String isbn) {
+        log.info(LogMarkers.BORROW, "Request: Borrower {} placing a hold on ISBN {}", borrowerId, isbn);
+        if (!borrowerRepository.existsById(borrowerId)) {
+            return Outcome.failed(Problem.BORROWER_NOT_FOUND);
+        }
+        if (!titleRepository.existsById(isbn)) {
+            return Outcome.failed(Problem.ISBN_NOT_FOUND);
+        }
+        Outcome<Hold> hold = holdQueue.place(borrowerId, isbn);
+        if (hold instanceof Outcome.Ok<Hold> ok) {
+            log.info(LogMarkers.BORROW, "Response: Hold {} is {}", ok.value().getId(), ok.value().getStatus());
+        }
+        return hold;
+    }
 
-            log.info("Response: Successfully returned Book {}", bookId);
+    /** A borrower's holds, newest first; READY holds name the copy set aside and the pickup deadline. */
+    public Outcome<List<Hold>> getHolds(Long borrowerId) {
+        if (!borrowerRepository.existsById(borrowerId)) {
+            return Outcome.failed(Problem.BORROWER_NOT_FOUND);
+        }
+        return Outcome.ok(holdQueue.holdsOf(borrowerId));
+    }
+
+    /** Catalog-wide copies, loans, holds and borrowers from the circulation counters; no database access. */
+    public CirculationSummary getCirculationStats() {
+        return circulationStats.summary();
+    }
 
-        } catch (Exception ex) {
-            log.error("Exception: Return transaction failed for Book {}. Error: {}", bookId, ex.getMessage());
-            throw ex;
+    /** Copies of one ISBN by state, from the circulation counters; no database access. */
+    public Outcome<Availability> getAvailability(String isbn) {
+        Availability availability = circulationStats.availability(isbn);
+        return availability != null ? Outcome.ok(availability) : Outcome.failed(Problem.ISBN_NOT_FOUND);
+    }
+
+    // Labelled reads may be served by a read replica; a client's own recent writes are read from the primary
+    @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA_READS)
+    public Outcome<List<BookView>> getBorrowedBooks(Long borrowerId) {
+        if (!borrowerRepository.existsById(borrowerId)) {
+            return Outcome.failed(Problem.BORROWER_NOT_FOUND);
         }
+        return Outcome.ok(bookRepository.findViewsByCurrentBorrowerId(borrowerId));
+    }
+
+    // Both lookups are read-through cached at the repository (see CacheConfig)
+    public Outcome<BookView> getBook(Long bookId) {
+        return bookRepository.findViewById(bookId)
+                .map(Outcome::ok)
+                .orElseGet(() -> Outcome.failed(Problem.BOOK_NOT_FOUND));
     }
 
+    public Outcome<BorrowerView> getBorrower(Long borrowerId) {
+        return borrowerRepository.findViewById(borrowerId)
+                .map(Outcome::ok)
+                .orElseGet(() -> Outcome.failed(Problem.BORROWER_NOT_FOUND));
+    }
+
+    /** A borrower's loans, newest first, read from the loan projection (lags commits by one flush). */
+    @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA_READS)
+    public Outcome<List<Loan>> getLoans(Long borrowerId, boolean currentOnly, int size) {
+        if (!borrowerRepository.existsById(borrowerId)) {
+            return Outcome.failed(Problem.BORROWER_NOT_FOUND);
+        }
+        if (currentOnly) {
+            return Outcome.ok(loanRepository.findByBorrowerIdAndReturnedAtIsNullOrderByBorrowedAtDesc(borrowerId));
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return Outcome.ok(loanRepository.findByBorrowerIdOrderByBorrowedAtDesc(borrowerId, Limit.of(limit)));
+    }
+
+    @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA_READS)
+    public List<TitleLoanCount> getMostBorrowed(int size) {
+        return titleLoanCountRepository.findAllByOrderByLoansDesc(Limit.of(Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+    }
+
+    @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA_READS)
     public List<Book> getAllBooks() {
-        log.info("Request: Get all books");
+        log.info(LogMarkers.LIST, "Request: Get all books");
         List<Book> books = bookRepository.findAll();
-        log.info("Response: Retrieved {} books", books.size());
+        log.info(LogMarkers.LIST, "Response: Retrieved {} books", books.size());
         return books;
     }
+
+    @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA_READS)
+    public BookPage getBooksPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long afterId = (cursor == null || cursor.isBlank()) ? 0L : CatalogCursor.decode(cursor);
+        log.info(LogMarkers.LIST, "Request: Get books page after {} (size {})", afterId, pageSize);
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<BookView> rows = bookRepository.findViewsAfter(afterId, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new BookPage(rows, null);
+        }
+        List<BookView> items = rows.subList(0, pageSize);
+        return new BookPage(items, CatalogCursor.encode(items.get(pageSize - 1).id()));
+    }
+
+    /** Ranked title/author search served from the in-memory index; no database access. */
+    public SearchPage searchBooks(String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be blank.");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative.");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        log.info(LogMarkers.LIST, "Request: Search '{}' (page {}, size {})", query, page, pageSize);
+
+        CatalogSearchIndex.Result result = searchIndex.search(query, (int) Math.min((long) page * pageSize, Integer.MAX_VALUE), pageSize);
+        return new SearchPage(result.titles(), page, result.total());
+    }
+
+    /**
+     * Pushes every book to {@code sink} in id order as rows are read from the cursor.
+     * Rows are views, never entities, so the persistence context stays empty and memory
+     * is flat regardless of catalog size.
+     */
+    @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA_READS)
+    public long streamAllBooks(Consumer<BookView> sink) {
+        log.info(LogMarkers.LIST, "Request: Stream all books");
+        long count = 0;
+        try (Stream<BookView> books = bookRepository.streamViews()) {
+            for (BookView book : (Iterable<BookView>) books::iterator) {
+                sink.accept(book);
+                count++;
+            }
+        }
+        log.info(LogMarkers.LIST, "Response: Streamed {} books", count);
+        return count;
+    }
 }
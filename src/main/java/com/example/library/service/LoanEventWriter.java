@@ -0,0 +1,245 @@
+package com.example.library.service;
+
+import com.example.library.model.Loan;
+import com.example.library.model.LoanEvent;
+import com.example.library.model.TitleLoanCount;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.LoanEventRepository;
+import com.example.library.repository.LoanRepository;
+import com.example.library.repository.TitleLoanCountRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Records borrows and returns off the request path. Callers only enqueue an event once their
+ * transaction commits; a scheduled drain writes the queued events in one transaction per batch
+ * and rolls them up into {@link Loan} and {@link TitleLoanCount}. The projections therefore lag
+ * the catalog by up to one flush interval.
+ * <p>
+ * A batch that fails to write is kept and retried with exponential backoff, never dropped. A return
+ * that arrives before its borrow (the borrow's commit callback lost the race) is parked and written
+ * with a later batch, once the loan it closes exists; after {@code unmatched-return-timeout} it is
+ * written without closing anything.
+ */
+@Component
+@Slf4j
+public class LoanEventWriter {
+
+    private static final long MIN_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    // How long a committing request waits for room in a full queue before the event is dropped
+    private static final long OFFER_WAIT_MS = 100;
+
+    private final BlockingQueue<LoanEvent> queue;
+    private final LoanEventRepository loanEventRepository;
+    private final LoanRepository loanRepository;
+    private final TitleLoanCountRepository titleLoanCountRepository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration unmatchedReturnTimeout;
+    private final LongAdder dropped = new LongAdder();
+
+    // Guarded by this: a batch whose write failed, and returns waiting for their borrow
+    private final List<LoanEvent> retry = new ArrayList<>();
+    private List<LoanEvent> parked = new ArrayList<>();
+    private long backoffMs;
+    private long retryAt;
+    private boolean shuttingDown;
+
+    public LoanEventWriter(LoanEventRepository loanEventRepository, LoanRepository loanRepository,
+                           TitleLoanCountRepository titleLoanCountRepository, BookRepository bookRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${library.loans.queue-capacity:100000}") int queueCapacity,
+                           @Value("${library.loans.batch-size:500}") int batchSize,
+                           @Value("${library.loans.unmatched-return-timeout:1m}") Duration unmatchedReturnTimeout) {
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.loanEventRepository = loanEventRepository;
+        this.loanRepository = loanRepository;
+        this.titleLoanCountRepository = titleLoanCountRepository;
+        this.bookRepository = bookRepository;
+        // May run inside another transaction's afterCommit callback, so always start a new one
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.unmatchedReturnTimeout = unmatchedReturnTimeout;
+    }
+
+    public void borrowed(Long bookId, Long borrowerId) {
+        enqueueAfterCommit(new LoanEvent(LoanEvent.Type.BORROWED, bookId, borrowerId, Instant.now()));
+    }
+
+    public void returned(Long bookId) {
+        enqueueAfterCommit(new LoanEvent(LoanEvent.Type.RETURNED, bookId, null, Instant.now()));
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /** Events lost because the queue stayed full, i.e. the writer fell behind or the database was down. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** Writes everything queued so far. Runs on the scheduler and at shutdown, never on a request thread. */
+    @Scheduled(fixedDelayString = "${library.loans.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (!retry.isEmpty()) {
+            if (!tryWrite(retry)) {
+                return;
+            }
+            retry.clear();
+        }
+        List<LoanEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (!tryWrite(batch)) {
+                retry.addAll(batch);
+                return;
+            }
+            batch.clear();
+        }
+        // Nothing new arrived, but parked returns may have waited long enough
+        if (parked.stream().anyMatch(this::overdue)) {
+            tryWrite(batch);
+        }
+    }
+
+    @PreDestroy
+    synchronized void drainOnShutdown() {
+        // One last attempt regardless of backoff; parked returns are written as they are
+        shuttingDown = true;
+        retryAt = 0;
+        flush();
+        if (!retry.isEmpty() || !queue.isEmpty()) {
+            log.error("Shutting down with {} loan events unwritten", retry.size() + queue.size());
+        }
+    }
+
+    private void enqueueAfterCommit(LoanEvent event) {
+        AfterCommit.run(() -> enqueue(event));
+    }
+
+    // Runs on the request thread after its commit: wait briefly for room, never write from here
+    private void enqueue(LoanEvent event) {
+        boolean queued;
+        try {
+            queued = queue.offer(event, OFFER_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            dropped.increment();
+            log.warn("Loan event queue full; dropped {} of book {}", event.getType(), event.getBookId());
+        }
+    }
+
+    // Writes the batch plus the parked returns; false, with the batch left to the caller, if it failed
+    private boolean tryWrite(List<LoanEvent> batch) {
+        if (System.currentTimeMillis() < retryAt) {
+            return false;
+        }
+        try {
+            parked = transactionTemplate.execute(status -> write(batch));
+            backoffMs = 0;
+            retryAt = 0;
+            return true;
+        } catch (RuntimeException e) {
+            backoffMs = Math.min(MAX_BACKOFF_MS, Math.max(MIN_BACKOFF_MS, backoffMs * 2));
+            retryAt = System.currentTimeMillis() + backoffMs;
+            log.error("Could not write {} loan events, retrying in {} ms: {}", batch.size(), backoffMs, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private boolean overdue(LoanEvent event) {
+        return shuttingDown || event.getOccurredAt().isBefore(Instant.now().minus(unmatchedReturnTimeout));
+    }
+
+    // Returns the returns still waiting for their borrow; only adopted once the transaction commits
+    private List<LoanEvent> write(List<LoanEvent> batch) {
+        List<LoanEvent> events = new ArrayList<>(parked.size() + batch.size());
+        events.addAll(parked);
+        events.addAll(batch);
+        // Commit callbacks of racing requests can enqueue slightly out of order
+        events.sort(Comparator.comparing(LoanEvent::getOccurredAt));
+        // Ids handed out by a rolled back attempt never reached the table
+        events.forEach(e -> e.setId(null));
+
+        Map<Long, String> isbnByCopy = new HashMap<>();
+        bookRepository.findCopyStatusByIdIn(events.stream().map(LoanEvent::getBookId).collect(Collectors.toSet()))
+                .forEach(c -> isbnByCopy.put(c.getId(), c.getIsbn()));
+
+        // Loans opened before this batch that it closes, fetched in one query
+        Map<Long, Loan> openLoans = new HashMap<>();
+        List<Long> returnedCopies = events.stream()
+                .filter(e -> e.getType() == LoanEvent.Type.RETURNED)
+                .map(LoanEvent::getBookId)
+                .toList();
+        if (!returnedCopies.isEmpty()) {
+            loanRepository.findByBookIdInAndReturnedAtIsNull(returnedCopies)
+                    .forEach(l -> openLoans.put(l.getBookId(), l));
+        }
+
+        List<LoanEvent> written = new ArrayList<>(events.size());
+        List<LoanEvent> unmatched = new ArrayList<>();
+        List<Loan> opened = new ArrayList<>();
+        Map<String, Long> lentPerIsbn = new HashMap<>();
+        for (LoanEvent event : events) {
+            event.setIsbn(isbnByCopy.get(event.getBookId()));
+            if (event.getType() == LoanEvent.Type.BORROWED) {
+                Loan loan = new Loan(event.getBookId(), event.getIsbn(), event.getBorrowerId(), event.getOccurredAt());
+                opened.add(loan);
+                openLoans.put(event.getBookId(), loan);
+                if (event.getIsbn() != null) {
+                    lentPerIsbn.merge(event.getIsbn(), 1L, Long::sum);
+                }
+                written.add(event);
+            } else {
+                Loan loan = openLoans.get(event.getBookId());
+                // A loan that started after the return is the copy's next one, not the one it closes
+                if (loan != null && !loan.getBorrowedAt().isAfter(event.getOccurredAt())) {
+                    openLoans.remove(event.getBookId());
+                    loan.setReturnedAt(event.getOccurredAt());
+                    event.setBorrowerId(loan.getBorrowerId());
+                    written.add(event);
+                } else if (overdue(event)) {
+                    log.warn("No loan found for the return of book {} at {}; recorded without a borrower",
+                            event.getBookId(), event.getOccurredAt());
+                    written.add(event);
+                } else {
+                    unmatched.add(event);
+                }
+            }
+        }
+
+        loanEventRepository.saveAll(written);
+        loanRepository.saveAll(opened);
+        lentPerIsbn.forEach((isbn, lent) -> {
+            if (titleLoanCountRepository.increment(isbn, lent) == 0) {
+                titleLoanCountRepository.save(new TitleLoanCount(isbn, lent));
+            }
+        });
+        return unmatched;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.library.service;
+
+/**
+ * Result of a {@link LibraryService} operation: either {@link Ok} with a value, or {@link Failed} with the
+ * business rule that rejected it. Rejections are routine (a copy already lent, an unknown id), so they are
+ * returned rather than thrown; exceptions are left for failures the caller cannot act on.
+ */
+public sealed interface Outcome<T> permits Outcome.Ok, Outcome.Failed {
+
+    record Ok<T>(T value) implements Outcome<T> {
+    }
+
+    record Failed<T>(Problem problem) implements Outcome<T> {
+    }
+
+    /** Shared success of operations without a value. */
+    Ok<Void> DONE = new Ok<>(null);
+
+    static <T> Outcome<T> ok(T value) {
+        return new Ok<>(value);
+    }
+
+    static Outcome<Void> ok() {
+        return DONE;
+    }
+
+    // Failures carry no value, so one preallocated instance per problem serves every T
+    @SuppressWarnings("unchecked")
+    static <T> Outcome<T> failed(Problem problem) {
+        return (Outcome<T>) problem.outcome;
+    }
+
+    default boolean isOk() {
+        return this instanceof Ok;
+    }
+
+    /** The value of an {@link Ok}; for callers that already checked {@link #isOk()}. */
+    default T value() {
+        if (this instanceof Ok<T> ok) {
+            return ok.value();
+        }
+        throw new IllegalStateException("No value: " + ((Failed<T>) this).problem());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.library.service;
+
+/** Business rules a {@link LibraryService} call can be rejected by, with the message shown to clients. */
+public enum Problem {
+
+    EMAIL_TAKEN(Kind.REJECTED, "Email already registered."),
+    ISBN_METADATA_MISMATCH(Kind.REJECTED, "ISBN conflict: Metadata mismatch."),
+    BOOK_NOT_FOUND(Kind.NOT_FOUND, "Book not found"),
+    BORROWER_NOT_FOUND(Kind.NOT_FOUND, "Borrower not found"),
+    ISBN_NOT_FOUND(Kind.NOT_FOUND, "ISBN not found"),
+    ALREADY_BORROWED(Kind.CONFLICT, "Book is already borrowed."),
+    NO_COPY_AVAILABLE(Kind.CONFLICT, "No copy of this ISBN is available."),
+    LOAN_LIMIT_REACHED(Kind.CONFLICT, "Loan limit reached."),
+    ON_HOLD(Kind.CONFLICT, "Book is on hold for another borrower."),
+    HOLD_EXISTS(Kind.CONFLICT, "Borrower already has a hold on this ISBN.");
+
+    public enum Kind { NOT_FOUND, CONFLICT, REJECTED }
+
+    private final Kind kind;
+    private final String message;
+    final Outcome.Failed<?> outcome;
+
+    Problem(Kind kind, String message) {
+        this.kind = kind;
+        this.message = message;
+        this.outcome = new Outcome.Failed<>(this);
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public String message() {
+        return message;
+    }
+}
@@ -0,0 +1,64 @@
+-- Baseline schema for managed databases (postgres profile), applied by Flyway.
+-- Portable SQL: the integration tests apply it to H2 in PostgreSQL mode.
+-- Sequences step by 50 to match the allocationSize of the entity id generators.
+
+create sequence book_seq start with 1 increment by 50;
+create sequence borrower_seq start with 1 increment by 50;
+create sequence loan_seq start with 1 increment by 50;
+create sequence loan_event_seq start with 1 increment by 50;
+
+create table title (
+    isbn   varchar(255) not null primary key,
+    title  varchar(255) not null,
+    author varchar(255) not null
+);
+
+create table borrower (
+    id    bigint not null primary key,
+    name  varchar(255),
+    email varchar(255),
+    constraint uk_borrower_email unique (email)
+);
+
+create table book (
+    id                  bigint not null primary key,
+    isbn                varchar(255) not null,
+    current_borrower_id bigint,
+    version             bigint,
+    constraint fk_book_title foreign key (isbn) references title (isbn)
+);
+
+-- Registration and borrow-by-ISBN look copies up by ISBN
+create index idx_book_isbn on book (isbn);
+-- Borrowed-books listing, return-all and the loan-limit count in the claim UPDATE
+create index idx_book_current_borrower on book (current_borrower_id);
+
+create table loan_event (
+    id          bigint not null primary key,
+    type        varchar(16) not null,
+    book_id     bigint not null,
+    isbn        varchar(255),
+    borrower_id bigint,
+    occurred_at timestamp(6) with time zone not null
+);
+
+create index idx_loan_event_book on loan_event (book_id, occurred_at);
+
+create table loan (
+    id          bigint not null primary key,
+    book_id     bigint not null,
+    isbn        varchar(255),
+    borrower_id bigint not null,
+    borrowed_at timestamp(6) with time zone not null,
+    returned_at timestamp(6) with time zone
+);
+
+create index idx_loan_borrower on loan (borrower_id, borrowed_at);
+create index idx_loan_book_open on loan (book_id, returned_at);
+
+create table title_loan_count (
+    isbn  varchar(255) not null primary key,
+    loans bigint not null
+);
+
+create index idx_title_loan_count_loans on title_loan_count (loans);
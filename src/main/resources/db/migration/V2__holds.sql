@@ -0,0 +1,20 @@
+-- Hold queues: a copy can be set aside for the borrower of a READY hold, and holds queue per ISBN.
+
+alter table book add column held_for_borrower_id bigint;
+
+create sequence hold_seq start with 1 increment by 50;
+
+create table book_hold (
+    id          bigint not null primary key,
+    isbn        varchar(255) not null,
+    borrower_id bigint not null,
+    status      varchar(16) not null,
+    placed_at   timestamp(6) with time zone not null,
+    book_id     bigint,
+    ready_until timestamp(6) with time zone
+);
+
+-- Head of an ISBN's queue (oldest WAITING hold first)
+create index idx_hold_queue on book_hold (isbn, status, placed_at);
+-- A borrower's holds
+create index idx_hold_borrower on book_hold (borrower_id, placed_at);
@@ -0,0 +1,154 @@
+package com.example.library.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void limiter_ShouldShedOnceLimitAndQueueAreFull() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 100, 0.5, 0, 0);
+
+        assertEquals(AdaptiveLimiter.Result.ADMITTED, limiter.acquire());
+        assertEquals(AdaptiveLimiter.Result.ADMITTED, limiter.acquire());
+        assertEquals(AdaptiveLimiter.Result.QUEUE_FULL, limiter.acquire());
+
+        limiter.release(FAST);
+        assertEquals(AdaptiveLimiter.Result.ADMITTED, limiter.acquire());
+    }
+
+    @Test
+    void limiter_ShouldTimeOutQueuedRequests() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 10, 100, 0.5, 1, 10);
+        limiter.acquire();
+
+        assertEquals(AdaptiveLimiter.Result.TIMED_OUT, limiter.acquire());
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    void limiter_ShouldBackOffWhenSlowAndGrowWhenSaturatedAndFast() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 2, 10, 100, 0.5, 0, 0);
+
+        limiter.acquire();
+        limiter.release(SLOW);
+        assertEquals(4, limiter.limit());
+
+        // Fast completions only raise the limit while it is the bottleneck
+        limiter.acquire();
+        limiter.release(FAST);
+        assertEquals(4, limiter.limit());
+
+        for (int round = 0; round < 100; round++) {
+            int limit = limiter.limit();
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire();
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(FAST);
+            }
+        }
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void limiter_ShouldBackOffOncePerWindowOfSlowRequests() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 10, 100, 0.5, 0, 0);
+        for (int i = 0; i < 8; i++) {
+            limiter.acquire();
+        }
+
+        // One overload episode: every request admitted under the old limit comes back slow
+        for (int i = 0; i < 8; i++) {
+            limiter.release(SLOW);
+        }
+        assertEquals(4, limiter.limit());
+
+        // The next window may shrink it again
+        limiter.acquire();
+        limiter.release(SLOW);
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void rateLimiter_ShouldAllowBurstThenAskClientToWait() {
+        ClientRateLimiter rateLimiter = new ClientRateLimiter(1, 3, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("kiosk-1"));
+        }
+        assertTrue(rateLimiter.tryAcquire("kiosk-1") > 0);
+        assertEquals(0, rateLimiter.tryAcquire("kiosk-2")); // buckets are per client
+    }
+
+    @Test
+    void filter_ShouldRejectWithRetryAfterAndCountShedRequests() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionFilter filter = new AdmissionFilter(
+                Map.of(AdmissionFilter.BORROW, new AdaptiveLimiter(1, 1, 1, 100, 0.5, 0, 0),
+                        AdmissionFilter.BORROW_BATCH, new AdaptiveLimiter(1, 1, 1, 100, 0.5, 0, 0),
+                        AdmissionFilter.REGISTRATION, new AdaptiveLimiter(1, 1, 1, 100, 0.5, 0, 0)),
+                new ClientRateLimiter(1, 1, 100), new ClientIdentity("X-Client-Id", List.of("127.0.0.1")), 2, registry);
+
+        assertEquals(200, borrow(filter).getStatus());
+
+        MockHttpServletResponse limited = borrow(filter);
+        assertEquals(429, limited.getStatus());
+        assertEquals("1", limited.getHeader("Retry-After"));
+        assertEquals(1, registry.get("library.admission.shed")
+                .tag("endpoint", "borrow").tag("reason", "rate_limited").counter().count());
+
+        // Reads are never throttled
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/library/books");
+        read.addHeader("X-Client-Id", "kiosk-1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(read, response, new MockFilterChain());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void batchBorrows_ShouldHaveTheirOwnLimiter() {
+        assertEquals(AdmissionFilter.BORROW, AdmissionFilter.endpointOf(new MockHttpServletRequest("POST", "/api/library/borrow")));
+        assertEquals(AdmissionFilter.BORROW_BATCH,
+                AdmissionFilter.endpointOf(new MockHttpServletRequest("POST", "/api/library/borrow/batch")));
+    }
+
+    @Test
+    void clientIdentity_ShouldOnlyTrustTheHeaderFromProxies() {
+        ClientIdentity clients = new ClientIdentity("X-Client-Id", List.of("10.0.0.1"));
+
+        MockHttpServletRequest direct = new MockHttpServletRequest("POST", "/api/library/borrow");
+        direct.setRemoteAddr("192.168.1.7");
+        direct.addHeader("X-Client-Id", "made-up");
+        assertEquals("192.168.1.7", clients.of(direct));
+
+        MockHttpServletRequest proxied = new MockHttpServletRequest("POST", "/api/library/borrow");
+        proxied.setRemoteAddr("10.0.0.1");
+        proxied.addHeader("X-Client-Id", "kiosk-1");
+        assertEquals("kiosk-1", clients.of(proxied));
+
+        MockHttpServletRequest unstamped = new MockHttpServletRequest("POST", "/api/library/borrow");
+        unstamped.setRemoteAddr("10.0.0.1");
+        assertEquals("10.0.0.1", clients.of(unstamped));
+    }
+
+    private static MockHttpServletResponse borrow(AdmissionFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/library/borrow");
+        request.addHeader("X-Client-Id", "kiosk-1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
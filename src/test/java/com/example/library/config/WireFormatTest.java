@@ -0,0 +1,60 @@
+package com.example.library.config;
+
+import com.example.library.model.Book;
+import com.example.library.model.Title;
+import com.example.library.service.LibraryService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "logging.level.com.example.library.service=WARN")
+@AutoConfigureMockMvc
+class WireFormatTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void cbor_ShouldOnlyBeSentWhenAskedFor_WithTheSameFieldsAsJson() throws Exception {
+        Book request = new Book();
+        request.setTitle(new Title("wire-1", "Binary Formats", "Someone"));
+        String path = "/api/library/books/" + libraryService.registerBook(request).value().getId();
+
+        MvcResult json = mockMvc.perform(get(path).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+        JsonNode expected = objectMapper.readTree(json.getResponse().getContentAsByteArray());
+        assertEquals("wire-1", expected.get("isbn").asText());
+
+        MvcResult cbor = mockMvc.perform(get(path).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        assertEquals(expected, new CBORMapper().readTree(cbor.getResponse().getContentAsByteArray()));
+
+        // Browsers, curl and clients that do not say stay on JSON
+        mockMvc.perform(get(path).accept(MediaType.ALL))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get(path))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.library.replica;
+
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import com.example.library.service.LibraryService;
+import com.example.library.service.Outcome;
+import com.example.library.service.Problem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Two H2 files stand in for a primary and its replica; {@link #replicate} plays the replication stream. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "library.datasource.replicas.urls=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "library.datasource.replicas.max-lag=500ms",
+        "logging.level.com.example.library.service=WARN"})
+class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:file:./target/replica-test/primary;DB_CLOSE_ON_EXIT=FALSE";
+    static final String REPLICA_URL = "jdbc:h2:file:./target/replica-test/replica;DB_CLOSE_ON_EXIT=FALSE";
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void labelledReads_ShouldUseTheReplica_ExceptRightAfterTheClientsOwnWrites() throws Exception {
+        replicate();
+        Long reader;
+        Long copy;
+        try (ReplicaRoutingDataSource.ClientScope desk = ReplicaRoutingDataSource.bindClient("desk")) {
+            reader = borrower("reader");
+            copy = copy("replica-1");
+            assertTrue(libraryService.borrowBook(reader, copy).isOk());
+
+            // Read-your-writes: the replica has not seen the borrower yet, the primary has
+            assertEquals(1, libraryService.getBorrowedBooks(reader).value().size());
+        }
+
+        try (ReplicaRoutingDataSource.ClientScope kiosk = ReplicaRoutingDataSource.bindClient("kiosk")) {
+            assertEquals(Outcome.failed(Problem.BORROWER_NOT_FOUND), libraryService.getBorrowedBooks(reader));
+            // Unlabelled lookups feed the shared cache, so they stay on the primary
+            assertTrue(libraryService.getBorrower(reader).isOk());
+
+            replicate();
+            assertEquals(1, libraryService.getBorrowedBooks(reader).value().size());
+        }
+
+        // Returned behind the replica's back: only the primary knows
+        jdbc.update("update book set current_borrower_id = null where id = ?", copy);
+        try (ReplicaRoutingDataSource.ClientScope desk = ReplicaRoutingDataSource.bindClient("desk")) {
+            Thread.sleep(600);
+            assertEquals(1, libraryService.getBorrowedBooks(reader).value().size());
+        }
+
+        // Without a client (startup, scheduled jobs) everything reads the primary
+        assertEquals(0, libraryService.getBorrowedBooks(reader).value().size());
+    }
+
+    // Copies the primary into the replica
+    private void replicate() throws Exception {
+        jdbc.execute("script to 'target/replica-test/primary.sql'");
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("drop all objects");
+            statement.execute("runscript from 'target/replica-test/primary.sql'");
+        }
+    }
+
+    private Long borrower(String name) {
+        Borrower borrower = new Borrower();
+        borrower.setName(name);
+        borrower.setEmail(name + "@replica.test");
+        return libraryService.registerBorrower(borrower).value().getId();
+    }
+
+    private Long copy(String isbn) {
+        Book request = new Book();
+        request.setTitle(new Title(isbn, "Replicated " + isbn, "Mirror"));
+        return libraryService.registerBook(request).value().getId();
+    }
+}
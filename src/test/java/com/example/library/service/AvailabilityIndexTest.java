@@ -0,0 +1,67 @@
+package com.example.library.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityIndexTest {
+
+    private final AvailabilityIndex index = new AvailabilityIndex();
+
+    @Test
+    void take_ShouldHandOutEachFreeCopyOnce() {
+        index.track(1L, "isbn-a", true);
+        index.track(2L, "isbn-a", true);
+        index.track(3L, "isbn-b", true);
+
+        Long first = index.take("isbn-a");
+        Long second = index.take("isbn-a");
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotEquals(first, second);
+        assertNull(index.take("isbn-a"));
+        assertEquals(3L, index.take("isbn-b"));
+    }
+
+    @Test
+    void take_ShouldSkipCopiesBorrowedDirectly() {
+        index.track(1L, "isbn-a", true);
+        index.track(2L, "isbn-a", true);
+
+        index.markBorrowed(1L);
+
+        assertEquals(2L, index.take("isbn-a"));
+        assertNull(index.take("isbn-a"));
+    }
+
+    @Test
+    void markAvailable_ShouldRequeueReturnedCopy() {
+        index.track(1L, "isbn-a", false);
+        assertNull(index.take("isbn-a"));
+
+        index.markAvailable(1L);
+        index.markAvailable(1L); // duplicate returns must not queue the copy twice
+
+        assertEquals(1L, index.take("isbn-a"));
+        assertNull(index.take("isbn-a"));
+    }
+
+    @Test
+    void borrowAndReturnById_ShouldNotGrowTheIsbnEntries() {
+        index.track(1L, "isbn-a", true);
+        index.track(2L, "isbn-a", true);
+
+        // What borrowBook and returnBook do to the index; nobody takes by ISBN in between
+        for (int i = 0; i < 1_000; i++) {
+            index.markBorrowed(1L);
+            index.markAvailable(1L);
+        }
+
+        assertEquals(2, index.indexedCount("isbn-a"));
+        assertNotNull(index.take("isbn-a"));
+        assertNotNull(index.take("isbn-a"));
+        assertNull(index.take("isbn-a"));
+        assertEquals(0, index.indexedCount("isbn-a"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowerRepository;
+import com.example.library.repository.TitleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Races many threads against the same copies on the embedded H2 database.
+ * Every copy must end up lent exactly once, to the borrower whose claim succeeded.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"logging.level.com.example.library.service=OFF", "library.loans.max-per-borrower=0"})
+class BorrowContentionTest {
+
+    private static final int THREADS = 16;
+    private static final int COPIES = 400;
+    // Each copy is fought over by this many threads, like a popular title at opening time
+    private static final int CONTENDERS = 4;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private TitleRepository titleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<Long> bookIds;
+    private List<Long> borrowerIds;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        titleRepository.deleteAll();
+        borrowerRepository.deleteAll();
+
+        List<Title> titles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            titles.add(titleRepository.save(new Title("978-0-00-000000-" + i, "Title " + i, "Author " + i)));
+        }
+
+        bookIds = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            Book copy = new Book();
+            copy.setTitle(titles.get(i % 10));
+            bookIds.add(bookRepository.save(copy).getId());
+        }
+
+        borrowerIds = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Borrower borrower = new Borrower();
+            borrower.setName("Borrower " + t);
+            borrower.setEmail("borrower" + t + "@test.com");
+            borrowerIds.add(borrowerRepository.save(borrower).getId());
+        }
+    }
+
+    @Test
+    void concurrentBorrows_ShouldNeverDoubleLend() throws Exception {
+        Map<Long, Long> winners = new ConcurrentHashMap<>();
+        AtomicInteger doubleLends = new AtomicInteger();
+
+        race((borrowerId, bookId) -> {
+            // A lost race comes back as a failed outcome
+            if (libraryService.borrowBook(borrowerId, bookId).isOk()
+                    && winners.putIfAbsent(bookId, borrowerId) != null) {
+                doubleLends.incrementAndGet();
+            }
+        });
+
+        assertEquals(0, doubleLends.get());
+        assertEquals(COPIES, winners.size());
+        for (Book book : bookRepository.findAll()) {
+            assertEquals(winners.get(book.getId()), book.getCurrentBorrowerId());
+        }
+    }
+
+    @Test
+    void legacyReadCheckWrite_ShouldNotOverLendThanksToVersionCheck() throws Exception {
+        Map<Long, Long> winners = new ConcurrentHashMap<>();
+        AtomicInteger doubleLends = new AtomicInteger();
+
+        // The pre-existing findById / check / save sequence; @Version now turns its lost races into failures
+        race((borrowerId, bookId) -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Book book = bookRepository.findById(bookId).orElseThrow();
+                    Borrower borrower = borrowerRepository.findById(borrowerId).orElseThrow();
+                    if (book.getCurrentBorrowerId() != null) {
+                        throw new IllegalStateException("Book is already borrowed.");
+                    }
+                    book.setCurrentBorrowerId(borrower.getId());
+                    bookRepository.save(book);
+                });
+                if (winners.putIfAbsent(bookId, borrowerId) != null) {
+                    doubleLends.incrementAndGet();
+                }
+            } catch (RuntimeException expected) {
+                // lost the race, either in the Java check or on the version check
+            }
+        });
+
+        assertEquals(0, doubleLends.get());
+        assertEquals(COPIES, winners.size());
+        for (Book book : bookRepository.findAll()) {
+            assertEquals(winners.get(book.getId()), book.getCurrentBorrowerId());
+        }
+    }
+
+    private void race(BorrowAttempt attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Long borrowerId = borrowerIds.get(t);
+                int group = t % (THREADS / CONTENDERS);
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    // Threads in the same group go after the same copies in the same order
+                    for (int i = group; i < COPIES; i += THREADS / CONTENDERS) {
+                        attempt.borrow(borrowerId, bookIds.get(i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BorrowAttempt {
+        void borrow(Long borrowerId, Long bookId);
+    }
+}
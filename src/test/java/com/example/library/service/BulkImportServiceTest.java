@@ -0,0 +1,111 @@
+package com.example.library.service;
+
+import com.example.library.dto.BatchResult;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowerRepository;
+import com.example.library.repository.TitleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "library.import.chunk-size=3")
+class BulkImportServiceTest {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private TitleRepository titleRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        titleRepository.deleteAll();
+        borrowerRepository.deleteAll();
+    }
+
+    @Test
+    void importBooks_ShouldInsertValidRows_AndReportRejectedOnes() {
+        Book existing = book("111", "Clean Code", "Uncle Bob");
+        titleRepository.save(existing.getTitle());
+        bookRepository.save(existing);
+
+        List<Book> rows = new ArrayList<>();
+        rows.add(book("111", "Clean Code", "Uncle Bob"));   // 1: copy of a stored ISBN
+        rows.add(book("111", "Dirty Code", "Uncle Bob"));   // 2: conflicts with the database
+        rows.add(book("222", "Refactoring", "Fowler"));     // 3: new ISBN
+        rows.add(book("", "No ISBN", "Nobody"));            // 4: fails validation
+        rows.add(book("222", "Refactoring", "Someone"));    // 5: conflicts with row 3, in a later chunk
+        rows.add(book("222", "REFACTORING", "fowler"));     // 6: same metadata, different case
+
+        BatchResult result = bulkImportService.importBooks(rows.iterator());
+
+        assertEquals(6, result.received());
+        assertEquals(3, result.accepted());
+        assertEquals(List.of(2, 4, 5), result.errors().stream().map(BatchResult.RowError::row).toList());
+        assertEquals(4, bookRepository.count());
+        assertEquals(2, titleRepository.count());
+    }
+
+    @Test
+    void importBooks_ShouldReportAChunkTheDatabaseRefuses_AndContinue() {
+        List<Book> rows = new ArrayList<>();
+        rows.add(book("333", "x".repeat(300), "Verbose"));  // 1: longer than the column, fails the whole chunk
+        rows.add(book("333", "x".repeat(300), "Verbose"));  // 2
+        rows.add(book("444", "Patterns", "Gamma"));         // 3
+        rows.add(book("333", "Brief", "Terse"));            // 4: the rolled back title is not remembered
+        rows.add(book("444", "Patterns", "Gamma"));         // 5
+
+        BatchResult result = bulkImportService.importBooks(rows.iterator());
+
+        assertEquals(5, result.received());
+        assertEquals(2, result.accepted());
+        assertEquals(List.of(1, 2, 3), result.errors().stream().map(BatchResult.RowError::row).toList());
+        assertEquals(2, bookRepository.count());
+        assertEquals("Brief", titleRepository.findById("333").orElseThrow().getTitle());
+    }
+
+    @Test
+    void importBorrowers_ShouldRejectDuplicateEmails_InBatchAndDatabase() {
+        borrowerRepository.save(borrower("Taken", "taken@test.com"));
+
+        BatchResult result = bulkImportService.importBorrowers(List.of(
+                borrower("A", "a@test.com"),
+                borrower("Taken", "taken@test.com"),
+                borrower("A again", "a@test.com"),
+                borrower("Bad", "not-an-email")).iterator());
+
+        assertEquals(1, result.accepted());
+        assertEquals(List.of(2, 3, 4), result.errors().stream().map(BatchResult.RowError::row).toList());
+        assertTrue(borrowerRepository.existsByEmail("a@test.com"));
+    }
+
+    private static Book book(String isbn, String title, String author) {
+        Book book = new Book();
+        book.setTitle(new Title(isbn, title, author));
+        return book;
+    }
+
+    private static Borrower borrower(String name, String email) {
+        Borrower borrower = new Borrower();
+        borrower.setName(name);
+        borrower.setEmail(email);
+        return borrower;
+    }
+}
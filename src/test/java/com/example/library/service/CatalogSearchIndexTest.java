@@ -0,0 +1,57 @@
+package com.example.library.service;
+
+import com.example.library.model.Title;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSearchIndexTest {
+
+    private final CatalogSearchIndex index = new CatalogSearchIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.add(new Title("isbn-1", "Clean Code", "Robert C. Martin"));
+        index.add(new Title("isbn-2", "Clean Architecture", "Robert C. Martin"));
+        index.add(new Title("isbn-3", "Code Complete", "Steve McConnell"));
+        index.add(new Title("isbn-4", "Les Misérables", "Victor Hugo"));
+    }
+
+    @Test
+    void search_ShouldMatchPrefixesCaseInsensitively() {
+        CatalogSearchIndex.Result result = index.search("CLEAN arch", 0, 10);
+
+        assertEquals(1, result.total());
+        assertEquals("isbn-2", result.titles().get(0).getIsbn());
+    }
+
+    @Test
+    void search_ShouldRankExactTitleMatchesFirst() {
+        // Both titles contain the exact word; equal scores fall back to title order
+        List<String> isbns = index.search("code", 0, 10).titles().stream().map(Title::getIsbn).toList();
+        assertEquals(List.of("isbn-1", "isbn-3"), isbns);
+
+        // Title hits outrank author hits
+        index.add(new Title("isbn-5", "Martin Eden", "Jack London"));
+        assertEquals("isbn-5", index.search("martin", 0, 10).titles().get(0).getIsbn());
+    }
+
+    @Test
+    void search_ShouldFoldAccents() {
+        assertEquals("isbn-4", index.search("miserables", 0, 10).titles().get(0).getIsbn());
+    }
+
+    @Test
+    void search_ShouldPageThroughRankedResults() {
+        CatalogSearchIndex.Result first = index.search("robert", 0, 1);
+        CatalogSearchIndex.Result second = index.search("robert", 1, 1);
+
+        assertEquals(2, first.total());
+        assertEquals(1, first.titles().size());
+        assertNotEquals(first.titles().get(0).getIsbn(), second.titles().get(0).getIsbn());
+        assertTrue(index.search("robert", 2, 1).titles().isEmpty());
+    }
+}
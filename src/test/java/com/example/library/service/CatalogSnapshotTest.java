@@ -0,0 +1,118 @@
+package com.example.library.service;
+
+import com.example.library.dto.SnapshotResult;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "library.snapshot.dir=target/test-snapshots",
+        "library.snapshot.batch-size=2",
+        "logging.level.com.example.library.service=WARN"})
+class CatalogSnapshotTest {
+
+    private static final String BOOKS = "select id, isbn, current_borrower_id, held_for_borrower_id, version from book order by id";
+    private static final String BORROWERS = "select id, name, email from borrower order by id";
+
+    @Autowired
+    private CatalogSnapshotService snapshotService;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void exportThenImport_ShouldRestoreTheCatalog_AndResumeAfterAPartialLoad() throws Exception {
+        Long reader = borrower("reader");
+        Long quiet = borrower("quiet");
+        Long lent = copy("snap-1", "Backups");
+        Long held = copy("snap-1", "Backups");
+        copy("snap-2", "Restores");
+        assertTrue(libraryService.borrowBook(reader, lent).isOk());
+        assertEquals(held, libraryService.placeHold(quiet, "snap-1").value().getBookId());
+
+        // Holds are not part of a snapshot, so the copy set aside comes back available
+        List<Map<String, Object>> books = jdbc.queryForList(BOOKS);
+        books.forEach(b -> b.put("held_for_borrower_id", null));
+        List<Map<String, Object>> borrowers = jdbc.queryForList(BORROWERS);
+        SnapshotResult exported = snapshotService.export("catalog");
+        assertEquals(books.size(), exported.books());
+        assertEquals(borrowers.size(), exported.borrowers());
+        assertEquals(jdbc.queryForObject("select count(*) from title", Long.class), exported.titles());
+        assertEquals(exported.bytes(), Path.of("target/test-snapshots/catalog.snap").toFile().length());
+
+        wipe();
+        SnapshotResult imported = snapshotService.importSnapshot("catalog");
+        assertEquals(books.size(), imported.books());
+        assertEquals(books, jdbc.queryForList(BOOKS));
+        assertEquals(borrowers, jdbc.queryForList(BORROWERS));
+
+        // Derived state is rebuilt: the lent copy stays lent, the others can be borrowed by ISBN
+        assertEquals(Outcome.failed(Problem.ALREADY_BORROWED), libraryService.borrowBook(reader, lent));
+        assertTrue(libraryService.borrowByIsbn(reader, "snap-2").isOk());
+        assertEquals(1, libraryService.searchBooks("restores", 0, 10).total());
+
+        // Not over a catalog that is in use
+        assertThrows(IllegalStateException.class, () -> snapshotService.importSnapshot("catalog"));
+
+        // An import that stopped part-way leaves its marker and picks up where it left off
+        jdbc.update("delete from book where id > ?", lent);
+        Files.createFile(Path.of("target/test-snapshots/catalog.snap.importing"));
+        SnapshotResult resumed = snapshotService.importSnapshot("catalog");
+        assertEquals(0, resumed.titles());
+        assertEquals(0, resumed.borrowers());
+        assertEquals(books.stream().filter(b -> (Long) b.get("id") > lent).count(), resumed.books());
+        assertFalse(Files.exists(Path.of("target/test-snapshots/catalog.snap.importing")));
+
+        // New rows get ids past the imported ones
+        assertTrue(copy("snap-3", "Afterwards") > (Long) books.get(books.size() - 1).get("id"));
+    }
+
+    @Test
+    void import_ShouldRejectDamagedOrUnknownFiles() throws Exception {
+        copy("snap-9", "Damaged");
+        snapshotService.export("damaged");
+        Path file = Path.of("target/test-snapshots/damaged.snap");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        IllegalStateException damaged = assertThrows(IllegalStateException.class, () -> snapshotService.importSnapshot("damaged"));
+        assertTrue(damaged.getMessage().contains("checksum"));
+        assertThrows(IllegalArgumentException.class, () -> snapshotService.importSnapshot("missing"));
+        assertThrows(IllegalArgumentException.class, () -> snapshotService.export("../outside"));
+    }
+
+    private void wipe() {
+        jdbc.update("delete from book_hold");
+        jdbc.update("delete from book");
+        jdbc.update("delete from borrower");
+        jdbc.update("delete from title");
+    }
+
+    private Long borrower(String name) {
+        Borrower borrower = new Borrower();
+        borrower.setName(name);
+        borrower.setEmail(name + "@snapshot.test");
+        return libraryService.registerBorrower(borrower).value().getId();
+    }
+
+    private Long copy(String isbn, String title) {
+        Book request = new Book();
+        request.setTitle(new Title(isbn, title, "Archivist"));
+        return libraryService.registerBook(request).value().getId();
+    }
+}
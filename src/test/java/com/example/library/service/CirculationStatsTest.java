@@ -0,0 +1,96 @@
+package com.example.library.service;
+
+import com.example.library.dto.Availability;
+import com.example.library.dto.CirculationSummary;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        // Reconciliation is driven by the test
+        "library.stats.reconcile-interval-ms=3600000",
+        "logging.level.com.example.library.service=WARN"})
+class CirculationStatsTest {
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private CirculationStats circulationStats;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void counters_ShouldFollowRegistrationsLoansAndHolds_AndAgreeWithTheDatabase() {
+        // Other tests share the database; start from counters that match it
+        circulationStats.reconcile();
+        CirculationSummary before = libraryService.getCirculationStats();
+
+        Long reader = borrower("reader");
+        Long holder = borrower("holder");
+        Long first = copy("stats-1");
+        Long second = copy("stats-1");
+        copy("stats-1");
+        Long held = copy("stats-2");
+        assertEquals(new Availability("stats-1", 3, 3, 0, 0), libraryService.getAvailability("stats-1").value());
+
+        assertTrue(libraryService.borrowBook(reader, first).isOk());
+        assertEquals(1, libraryService.borrowBooks(reader, List.of(second)).value().borrowed());
+        assertTrue(libraryService.returnBook(first).isOk());
+        assertEquals(new Availability("stats-1", 3, 2, 1, 0), libraryService.getAvailability("stats-1").value());
+
+        libraryService.placeHold(holder, "stats-2");
+        assertEquals(new Availability("stats-2", 1, 0, 0, 1), libraryService.getAvailability("stats-2").value());
+        assertTrue(libraryService.borrowBook(holder, held).isOk());
+        assertEquals(new Availability("stats-2", 1, 0, 1, 0), libraryService.getAvailability("stats-2").value());
+
+        CirculationSummary after = libraryService.getCirculationStats();
+        assertEquals(before.titles() + 2, after.titles());
+        assertEquals(before.copies() + 4, after.copies());
+        assertEquals(before.onLoan() + 2, after.onLoan());
+        assertEquals(before.borrowers() + 2, after.borrowers());
+        assertEquals(before.activeBorrowers() + 2, after.activeBorrowers());
+        assertEquals(0, circulationStats.reconcile());
+
+        assertEquals(Outcome.failed(Problem.ISBN_NOT_FOUND), libraryService.getAvailability("stats-missing"));
+    }
+
+    @Test
+    void reconcile_ShouldCorrectChangesMadeBehindTheService() {
+        Long reader = borrower("offline");
+        Long copy = copy("stats-3");
+        assertTrue(libraryService.borrowBook(reader, copy).isOk());
+        circulationStats.reconcile();
+        long active = libraryService.getCirculationStats().activeBorrowers();
+
+        // Returned by SQL, so no hook sees it
+        jdbc.update("update book set current_borrower_id = null where id = ?", copy);
+        assertEquals(1, libraryService.getAvailability("stats-3").value().onLoan());
+
+        assertTrue(circulationStats.reconcile() > 0);
+        assertEquals(new Availability("stats-3", 1, 1, 0, 0), libraryService.getAvailability("stats-3").value());
+        assertEquals(active - 1, libraryService.getCirculationStats().activeBorrowers());
+    }
+
+    private Long borrower(String name) {
+        Borrower borrower = new Borrower();
+        borrower.setName(name);
+        borrower.setEmail(name + "@stats.test");
+        return libraryService.registerBorrower(borrower).value().getId();
+    }
+
+    private Long copy(String isbn) {
+        Book request = new Book();
+        request.setTitle(new Title(isbn, "Counting " + isbn, "Statistician"));
+        return libraryService.registerBook(request).value().getId();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.library.service;
+
+import com.example.library.dto.LoanBatchResult;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Hold;
+import com.example.library.model.Title;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "library.holds.pickup-window=300ms",
+        // Expiry is driven by the test
+        "library.holds.sweep-interval-ms=3600000",
+        "logging.level.com.example.library.service=WARN"})
+class HoldQueueTest {
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private HoldQueue holdQueue;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Test
+    void returnedCopy_ShouldGoToHoldsInOrder_AndMoveOnWhenUncollected() throws Exception {
+        Long reader = borrower("reader");
+        Long first = borrower("first");
+        Long second = borrower("second");
+        Long copy = copy("hold-1");
+        assertTrue(libraryService.borrowBook(reader, copy).isOk());
+
+        assertEquals(Hold.Status.WAITING, libraryService.placeHold(first, "hold-1").value().getStatus());
+        assertEquals(Hold.Status.WAITING, libraryService.placeHold(second, "hold-1").value().getStatus());
+        assertEquals(Outcome.failed(Problem.HOLD_EXISTS), libraryService.placeHold(first, "hold-1"));
+
+        // The return sets the copy aside for the first hold; nobody else can take it
+        assertTrue(libraryService.returnBook(copy).isOk());
+        Hold ready = hold(first);
+        assertEquals(Hold.Status.READY, ready.getStatus());
+        assertEquals(copy, ready.getBookId());
+        assertEquals(Outcome.failed(Problem.ON_HOLD), libraryService.borrowBook(second, copy));
+        assertEquals(Outcome.failed(Problem.NO_COPY_AVAILABLE), libraryService.borrowByIsbn(reader, "hold-1"));
+        assertEquals(LoanBatchResult.Status.ON_HOLD,
+                libraryService.borrowBooks(reader, List.of(copy)).value().items().get(0).status());
+
+        // Uncollected within the window: the copy passes to the next hold
+        Thread.sleep(400);
+        holdQueue.expireUncollected();
+        assertEquals(Hold.Status.EXPIRED, hold(first).getStatus());
+        assertEquals(Hold.Status.READY, hold(second).getStatus());
+
+        assertTrue(libraryService.borrowBook(second, copy).isOk());
+        assertEquals(Hold.Status.FULFILLED, hold(second).getStatus());
+        assertNull(holdQueue.readyCopy(second, "hold-1"));
+
+        // A collected hold's deadline is skipped by the sweeper
+        Thread.sleep(400);
+        holdQueue.expireUncollected();
+        assertEquals(Hold.Status.FULFILLED, hold(second).getStatus());
+        assertEquals(second, libraryService.getBook(copy).value().currentBorrowerId());
+    }
+
+    @Test
+    void placeHold_ShouldSetAsideAFreeCopyAtOnce() {
+        Long reader = borrower("eager");
+        Long copy = copy("hold-2");
+
+        Hold hold = libraryService.placeHold(reader, "hold-2").value();
+
+        assertEquals(Hold.Status.READY, hold.getStatus());
+        assertEquals(copy, hold.getBookId());
+        assertEquals(reader, libraryService.getBook(copy).value().heldForBorrowerId());
+        assertEquals(Outcome.failed(Problem.NO_COPY_AVAILABLE), libraryService.borrowByIsbn(borrower("other"), "hold-2"));
+        assertTrue(libraryService.borrowBook(reader, copy).isOk());
+    }
+
+    @Test
+    void readyHolder_ShouldCollectTheirCopyByIsbn() {
+        Long reader = borrower("collector");
+        Long copy = copy("hold-3");
+        assertEquals(Hold.Status.READY, libraryService.placeHold(reader, "hold-3").value().getStatus());
+
+        Outcome<Book> borrowed = libraryService.borrowByIsbn(reader, "hold-3");
+
+        assertTrue(borrowed.isOk());
+        assertEquals(copy, borrowed.value().getId());
+        assertEquals(Hold.Status.FULFILLED, hold(reader).getStatus());
+        assertNull(holdQueue.readyCopy(reader, "hold-3"));
+    }
+
+    @Test
+    void newCopies_ShouldGoToWaitingHoldsBeforeWalkIns() {
+        Long reader = borrower("early");
+        Long waiter = borrower("waiter");
+        Long bulkWaiter = borrower("bulk-waiter");
+        assertTrue(libraryService.borrowBook(reader, copy("hold-4")).isOk());
+        libraryService.placeHold(waiter, "hold-4");
+        libraryService.placeHold(bulkWaiter, "hold-4");
+
+        Long registered = copy("hold-4");
+        assertEquals(registered, hold(waiter).getBookId());
+        assertEquals(Hold.Status.READY, hold(waiter).getStatus());
+
+        Book imported = new Book();
+        imported.setTitle(new Title("hold-4", "Waiting List", "Someone"));
+        assertEquals(1, bulkImportService.importBooks(List.of(imported).iterator()).accepted());
+        assertEquals(Hold.Status.READY, hold(bulkWaiter).getStatus());
+        assertEquals(Outcome.failed(Problem.NO_COPY_AVAILABLE), libraryService.borrowByIsbn(borrower("walk-in"), "hold-4"));
+    }
+
+    @Test
+    void placeHold_ShouldRejectUnknownBorrowerOrIsbn() {
+        assertEquals(Outcome.failed(Problem.BORROWER_NOT_FOUND), libraryService.placeHold(-1L, "hold-1"));
+        assertEquals(Outcome.failed(Problem.ISBN_NOT_FOUND), libraryService.placeHold(borrower("lost"), "no-such-isbn"));
+    }
+
+    private Hold hold(Long borrowerId) {
+        return libraryService.getHolds(borrowerId).value().get(0);
+    }
+
+    private Long borrower(String name) {
+        Borrower borrower = new Borrower();
+        borrower.setName(name);
+        borrower.setEmail(name + "@holds.test");
+        return libraryService.registerBorrower(borrower).value().getId();
+    }
+
+    private Long copy(String isbn) {
+        Book request = new Book();
+        request.setTitle(new Title(isbn, "Waiting List", "Someone"));
+        return libraryService.registerBook(request).value().getId();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.library.service;
+
+import com.example.library.dto.LoanBatchResult;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Loan;
+import com.example.library.model.LoanEvent;
+import com.example.library.model.Title;
+import com.example.library.repository.LoanEventRepository;
+import com.example.library.repository.TitleLoanCountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "logging.level.com.example.library.service=WARN")
+class LoanHistoryTest {
+
+    // library.loans.max-per-borrower default
+    private static final int MAX_LOANS = 10;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private LoanEventWriter loanEventWriter;
+
+    @Autowired
+    private LoanEventRepository loanEventRepository;
+
+    @Autowired
+    private TitleLoanCountRepository titleLoanCountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void borrowAndReturn_ShouldBeLoggedAndRolledUp() {
+        Borrower borrower = new Borrower();
+        borrower.setName("History");
+        borrower.setEmail("history@test.com");
+        Long borrowerId = libraryService.registerBorrower(borrower).value().getId();
+
+        Book request = new Book();
+        request.setTitle(new Title("history-1", "Memoirs", "Someone"));
+        Long first = libraryService.registerBook(request).value().getId();
+        Long second = libraryService.registerBook(request).value().getId();
+
+        libraryService.borrowBook(borrowerId, first);
+        libraryService.borrowBook(borrowerId, second);
+        libraryService.returnBook(first);
+        libraryService.returnBook(first); // not on loan: no event
+        loanEventWriter.flush();
+
+        List<Loan> loans = libraryService.getLoans(borrowerId, false, 10).value();
+        assertEquals(2, loans.size());
+        Loan returned = loans.stream().filter(l -> l.getBookId().equals(first)).findFirst().orElseThrow();
+        assertNotNull(returned.getReturnedAt());
+        assertFalse(returned.getReturnedAt().isBefore(returned.getBorrowedAt()));
+
+        List<Loan> current = libraryService.getLoans(borrowerId, true, 10).value();
+        assertEquals(List.of(second), current.stream().map(Loan::getBookId).toList());
+
+        List<LoanEvent> events = loanEventRepository.findAll().stream()
+                .filter(e -> "history-1".equals(e.getIsbn()))
+                .toList();
+        assertEquals(3, events.size());
+        assertTrue(events.stream().allMatch(e -> borrowerId.equals(e.getBorrowerId())));
+        assertEquals(2, titleLoanCountRepository.findById("history-1").orElseThrow().getLoans());
+    }
+
+    @Test
+    void returnFlushedBeforeItsBorrow_ShouldStillCloseTheLoan() throws Exception {
+        Borrower borrower = new Borrower();
+        borrower.setName("Hasty");
+        borrower.setEmail("hasty@test.com");
+        Long borrowerId = libraryService.registerBorrower(borrower).value().getId();
+
+        Book request = new Book();
+        request.setTitle(new Title("history-2", "Out of Order", "Someone"));
+        Long copy = libraryService.registerBook(request).value().getId();
+
+        // The borrow's commit callback loses the race: its return is enqueued and flushed first
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            loanEventWriter.borrowed(copy, borrowerId);
+            Thread returner = new Thread(() -> {
+                loanEventWriter.returned(copy);
+                loanEventWriter.flush();
+            });
+            returner.start();
+            try {
+                returner.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        loanEventWriter.flush();
+
+        Loan loan = libraryService.getLoans(borrowerId, false, 10).value().get(0);
+        assertNotNull(loan.getReturnedAt());
+        assertTrue(libraryService.getLoans(borrowerId, true, 10).value().isEmpty());
+        List<LoanEvent> events = loanEventRepository.findAll().stream()
+                .filter(e -> "history-2".equals(e.getIsbn()))
+                .toList();
+        assertEquals(2, events.size());
+        assertTrue(events.stream().allMatch(e -> borrowerId.equals(e.getBorrowerId())));
+    }
+
+    @Test
+    void loanLimit_ShouldHoldUnderConcurrentBorrows() throws Exception {
+        Borrower borrower = new Borrower();
+        borrower.setName("Greedy");
+        borrower.setEmail("greedy@test.com");
+        Long borrowerId = libraryService.registerBorrower(borrower).value().getId();
+
+        Book request = new Book();
+        request.setTitle(new Title("limit-1", "Popular", "Someone"));
+        List<Long> copies = new ArrayList<>();
+        for (int i = 0; i < 2 * MAX_LOANS; i++) {
+            copies.add(libraryService.registerBook(request).value().getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(copies.size());
+        AtomicInteger limited = new AtomicInteger();
+        List<Future<?>> attempts = copies.stream().map(bookId -> pool.submit(() -> {
+            Outcome<Void> outcome = libraryService.borrowBook(borrowerId, bookId);
+            if (!outcome.isOk()) {
+                assertEquals(Outcome.failed(Problem.LOAN_LIMIT_REACHED), outcome);
+                limited.incrementAndGet();
+            }
+        })).collect(Collectors.toList());
+        for (Future<?> attempt : attempts) {
+            attempt.get();
+        }
+        pool.shutdown();
+
+        assertEquals(MAX_LOANS, libraryService.getBorrowedBooks(borrowerId).value().size());
+        assertEquals(MAX_LOANS, limited.get());
+
+        assertEquals(MAX_LOANS, libraryService.returnAllBooks(borrowerId).value().size());
+        assertTrue(libraryService.getBorrowedBooks(borrowerId).value().isEmpty());
+    }
+
+    @Test
+    void batchBorrowAndReturn_ShouldApplyPerCopy() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Desk");
+        borrower.setEmail("desk@test.com");
+        Long borrowerId = libraryService.registerBorrower(borrower).value().getId();
+
+        Book request = new Book();
+        request.setTitle(new Title("batch-1", "Stacked", "Someone"));
+        Long first = libraryService.registerBook(request).value().getId();
+        Long second = libraryService.registerBook(request).value().getId();
+        libraryService.borrowBook(borrowerId, second);
+
+        LoanBatchResult borrowed = libraryService.borrowBooks(borrowerId, List.of(first, second, -1L)).value();
+        assertEquals(1, borrowed.borrowed());
+        assertEquals(List.of(LoanBatchResult.Status.BORROWED, LoanBatchResult.Status.ALREADY_BORROWED,
+                LoanBatchResult.Status.NOT_FOUND), borrowed.items().stream().map(LoanBatchResult.Item::status).toList());
+        assertEquals(borrowerId, libraryService.getBook(first).value().currentBorrowerId());
+
+        LoanBatchResult returned = libraryService.returnBooks(List.of(first, second));
+        assertEquals(2, returned.returned());
+        assertTrue(libraryService.getBorrowedBooks(borrowerId).value().isEmpty());
+        assertNull(libraryService.getBook(first).value().currentBorrowerId());
+    }
+
+    @Test
+    void failedBorrow_ShouldNotBeLogged() {
+        int before = (int) loanEventRepository.count();
+
+        assertEquals(Outcome.failed(Problem.BORROWER_NOT_FOUND), libraryService.borrowBook(-1L, -1L));
+        loanEventWriter.flush();
+
+        assertEquals(before, loanEventRepository.count());
+        assertEquals(Outcome.failed(Problem.BORROWER_NOT_FOUND), libraryService.getLoans(-1L, false, 10));
+    }
+}
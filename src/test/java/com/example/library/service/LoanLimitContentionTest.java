@@ -0,0 +1,115 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowerRepository;
+import com.example.library.repository.TitleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Races one borrower's borrows against each other on the embedded H2 database, with the loan limit on.
+ * Each thread goes after copies no other thread wants, so only the limit can stop it; together they
+ * must never lend the borrower more than the limit allows.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"logging.level.com.example.library.service=OFF", "library.loans.max-per-borrower=" + LoanLimitContentionTest.LIMIT})
+class LoanLimitContentionTest {
+
+    static final int LIMIT = 3;
+    private static final int BORROWERS = 4;
+    // Threads borrowing for the same borrower at once, like one account on several devices
+    private static final int THREADS_PER_BORROWER = 4;
+    private static final int COPIES = 200;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private TitleRepository titleRepository;
+
+    private List<Long> bookIds;
+    private List<Long> borrowerIds;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        titleRepository.deleteAll();
+        borrowerRepository.deleteAll();
+
+        Title title = titleRepository.save(new Title("978-0-00-000001-0", "Limited", "Someone"));
+        bookIds = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            Book copy = new Book();
+            copy.setTitle(title);
+            bookIds.add(bookRepository.save(copy).getId());
+        }
+
+        borrowerIds = new ArrayList<>();
+        for (int b = 0; b < BORROWERS; b++) {
+            Borrower borrower = new Borrower();
+            borrower.setName("Borrower " + b);
+            borrower.setEmail("limited" + b + "@test.com");
+            borrowerIds.add(borrowerRepository.save(borrower).getId());
+        }
+    }
+
+    @Test
+    void concurrentBorrowsBySameBorrower_ShouldNeverExceedTheLimit() throws Exception {
+        int threads = BORROWERS * THREADS_PER_BORROWER;
+        AtomicInteger[] lent = new AtomicInteger[BORROWERS];
+        for (int b = 0; b < BORROWERS; b++) {
+            lent[b] = new AtomicInteger();
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int borrower = t % BORROWERS;
+                int first = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = first; i < COPIES; i += threads) {
+                        if (libraryService.borrowBook(borrowerIds.get(borrower), bookIds.get(i)).isOk()) {
+                            lent[borrower].incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int b = 0; b < BORROWERS; b++) {
+            assertEquals(LIMIT, lent[b].get());
+            assertEquals(LIMIT, bookRepository.countByCurrentBorrowerId(borrowerIds.get(b)));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.library.service;
+
+import com.example.library.config.CacheConfig;
+import com.example.library.dto.BookView;
+import com.example.library.dto.BorrowerView;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowerRepository;
+import com.example.library.repository.TitleRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "logging.level.com.example.library.service=WARN")
+class LookupCacheTest {
+
+    private static final int LOOKUPS = 100;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private TitleRepository titleRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Long bookId;
+    private Long borrowerId;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        titleRepository.deleteAll();
+        borrowerRepository.deleteAll();
+
+        Book copy = new Book();
+        copy.setTitle(titleRepository.save(new Title("123-456", "Clean Code", "Uncle Bob")));
+        bookId = bookRepository.save(copy).getId();
+
+        Borrower borrower = new Borrower();
+        borrower.setName("Wei Lee");
+        borrower.setEmail("wei@test.com");
+        borrowerId = borrowerRepository.save(borrower).getId();
+    }
+
+    @Test
+    void getBook_ShouldBeServedFromCache_AfterFirstLookup() {
+        libraryService.getBook(bookId);
+
+        // Immutable views, never the entities a caller could change under other readers
+        assertInstanceOf(BookView.class, cache(CacheConfig.BOOKS).get(bookId).get());
+        assertTrue(libraryService.getBook(bookId).isOk());
+
+        libraryService.getBorrower(borrowerId);
+        assertInstanceOf(BorrowerView.class, cache(CacheConfig.BORROWERS).get(borrowerId).get());
+    }
+
+    @Test
+    void borrowAndReturn_ShouldNeverLeaveStaleBorrowerInCache() {
+        assertNull(libraryService.getBook(bookId).value().currentBorrowerId()); // cached as available
+
+        libraryService.borrowBook(borrowerId, bookId);
+        assertEquals(borrowerId, libraryService.getBook(bookId).value().currentBorrowerId());
+
+        libraryService.returnBook(bookId);
+        assertNull(libraryService.getBook(bookId).value().currentBorrowerId());
+    }
+
+    @Test
+    void existsByEmail_ShouldCacheOnlyTakenEmails() {
+        assertFalse(borrowerRepository.existsByEmail("new@test.com"));
+        assertNull(cache(CacheConfig.BORROWER_EMAILS).get("new@test.com"));
+
+        assertTrue(borrowerRepository.existsByEmail("wei@test.com"));
+        assertNotNull(cache(CacheConfig.BORROWER_EMAILS).get("wei@test.com"));
+    }
+
+    @Test
+    void repeatedLookups_ShouldHitTheCache_NotTheDatabase() {
+        CacheStats before = stats(CacheConfig.BOOKS);
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertTrue(libraryService.getBook(bookId).isOk());
+        }
+
+        // Only the first lookup reaches the repository; latency is measured by LookupBenchmark
+        CacheStats after = stats(CacheConfig.BOOKS).minus(before);
+        assertEquals(1, after.missCount());
+        assertEquals(LOOKUPS - 1, after.hitCount());
+    }
+
+    private CacheStats stats(String name) {
+        return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache(name).getNativeCache()).stats();
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.library.service;
+
+import com.example.library.dto.BookView;
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Loan;
+import com.example.library.model.Title;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Flyway migrations of the postgres profile against H2 in PostgreSQL mode, standing in for
+ * a server, and drives the service over the migrated schema instead of one generated by Hibernate.
+ * Hibernate validates the schema against the entities at startup, as the postgres profile does, so a
+ * migration that falls behind an entity change fails here.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrated;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "logging.level.com.example.library.service=WARN"})
+class MigrationSchemaTest {
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private LoanEventWriter loanEventWriter;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void migrations_ShouldCreateLookupIndexes() {
+        assertEquals("2", flyway.info().current().getVersion().getVersion());
+
+        List<String> indexes = jdbc.queryForList(
+                "select index_name from information_schema.indexes where table_name = 'book'", String.class);
+        assertTrue(indexes.containsAll(List.of("idx_book_isbn", "idx_book_current_borrower")), indexes.toString());
+        assertEquals(1, jdbc.queryForObject("select count(*) from information_schema.table_constraints " +
+                "where constraint_name = 'uk_borrower_email' and constraint_type = 'UNIQUE'", Integer.class));
+    }
+
+    @Test
+    void borrowAndReturn_ShouldWorkOnMigratedSchema() {
+        Borrower borrower = new Borrower();
+        borrower.setName("Migrated");
+        borrower.setEmail("migrated@test.com");
+        Long borrowerId = libraryService.registerBorrower(borrower).value().getId();
+        assertEquals(Outcome.failed(Problem.EMAIL_TAKEN), libraryService.registerBorrower(borrower));
+
+        Book request = new Book();
+        request.setTitle(new Title("migrated-1", "Schemas", "Someone"));
+        Long bookId = libraryService.registerBook(request).value().getId();
+
+        assertTrue(libraryService.borrowBook(borrowerId, bookId).isOk());
+        assertEquals(Outcome.failed(Problem.ALREADY_BORROWED), libraryService.borrowBook(borrowerId, bookId));
+        assertEquals(List.of(bookId), libraryService.getBorrowedBooks(borrowerId).value().stream().map(BookView::id).toList());
+        assertTrue(libraryService.returnBook(bookId).isOk());
+        loanEventWriter.flush();
+
+        List<Loan> loans = libraryService.getLoans(borrowerId, false, 10).value();
+        assertEquals(1, loans.size());
+        assertNotNull(loans.get(0).getReturnedAt());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.Title;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.TitleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Races first registrations of the same ISBN on the embedded H2 database. Only one can insert the title;
+ * every other copy must still be registered against it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "logging.level.com.example.library.service=OFF")
+class RegistrationContentionTest {
+
+    private static final int THREADS = 8;
+    private static final int ISBNS = 20;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TitleRepository titleRepository;
+
+    @Test
+    void concurrentFirstRegistrations_ShouldAllAddCopiesToOneTitle() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < ISBNS; i++) {
+                String isbn = "race-" + i;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Outcome<Book>>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    futures.add(pool.submit(() -> {
+                        Book request = new Book();
+                        request.setTitle(new Title(isbn, "Contended", "Someone"));
+                        start.await();
+                        return libraryService.registerBook(request);
+                    }));
+                }
+                start.countDown();
+                for (Future<Outcome<Book>> future : futures) {
+                    assertTrue(future.get().isOk());
+                }
+
+                assertTrue(titleRepository.existsById(isbn));
+                assertEquals(THREADS, bookRepository.findByTitleIsbn(isbn).size());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
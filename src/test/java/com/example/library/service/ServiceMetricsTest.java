@@ -0,0 +1,76 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.Borrower;
+import com.example.library.model.Title;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "logging.level.com.example.library.service=WARN")
+class ServiceMetricsTest {
+
+    private static final List<String> KEYS = List.of(
+            "registerBorrower/accepted", "registerBorrower/rejected", "registerBook/accepted",
+            "borrowBook/success", "borrowBook/conflict", "borrowBook/not_found", "searchBooks/rejected");
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void serviceCalls_ShouldBeTimedPerMethodAndOutcome() {
+        // The context (and its registry) may be shared with other tests, so compare deltas
+        Map<String, Long> before = new HashMap<>();
+        for (String key : KEYS) {
+            before.put(key, count(key));
+        }
+
+        Borrower borrower = new Borrower();
+        borrower.setName("Metrics");
+        borrower.setEmail("metrics@test.com");
+        Long borrowerId = libraryService.registerBorrower(borrower).value().getId();
+        assertFalse(libraryService.registerBorrower(borrower).isOk());
+
+        Book request = new Book();
+        request.setTitle(new Title("metrics-1", "Observability", "Someone"));
+        Long bookId = libraryService.registerBook(request).value().getId();
+
+        libraryService.borrowBook(borrowerId, bookId);
+        assertFalse(libraryService.borrowBook(borrowerId, bookId).isOk());
+        assertFalse(libraryService.borrowBook(borrowerId, -1L).isOk());
+        // Bad input, not a missing record
+        assertThrows(IllegalArgumentException.class, () -> libraryService.searchBooks(" ", 0, 10));
+
+        for (String key : KEYS) {
+            assertEquals(1, count(key) - before.get(key), key);
+        }
+    }
+
+    @Test
+    void repositoryCallsAndPoolShouldBeInstrumented() {
+        libraryService.getBooksPage(null, 10);
+
+        assertNotNull(meterRegistry.find("spring.data.repository.invocations").tag("repository", "BookRepository").timer());
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").gauge());
+    }
+
+    private long count(String key) {
+        String[] parts = key.split("/");
+        String method = parts[0];
+        String outcome = parts[1];
+        Timer timer = meterRegistry.find("library.service").tag("method", method).tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}